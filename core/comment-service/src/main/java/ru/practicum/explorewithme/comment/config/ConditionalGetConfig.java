@@ -0,0 +1,43 @@
+package ru.practicum.explorewithme.comment.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.practicum.explorewithme.api.http.ConditionalGetInterceptor;
+import ru.practicum.explorewithme.api.http.ConditionalGetResponseAdvice;
+import ru.practicum.explorewithme.api.http.ConditionalGetRule;
+import ru.practicum.explorewithme.comment.service.CommentVersions;
+
+import java.util.Map;
+
+@Configuration
+@RequiredArgsConstructor
+public class ConditionalGetConfig implements WebMvcConfigurer {
+
+    public static final String EVENT_COMMENTS = "eventComments";
+    public static final String COMMENTS = "comments";
+
+    private final CommentVersions versions;
+
+    @Value("${ru.practicum.explorewithme.http.maxAgeSeconds.comments:0}")
+    private long commentsMaxAge;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ConditionalGetInterceptor(Map.of(
+                EVENT_COMMENTS, ConditionalGetRule.of(request -> {
+                    Long eventId = ConditionalGetRule.pathId(request, "eventId");
+                    return eventId == null ? null : versions.eventCommentsETag(eventId);
+                }, commentsMaxAge),
+                COMMENTS, ConditionalGetRule.of(request -> versions.allCommentsETag(), commentsMaxAge)
+        )));
+    }
+
+    @Bean
+    public ConditionalGetResponseAdvice conditionalGetResponseAdvice() {
+        return new ConditionalGetResponseAdvice();
+    }
+}
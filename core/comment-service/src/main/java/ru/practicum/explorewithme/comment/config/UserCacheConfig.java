@@ -0,0 +1,26 @@
+package ru.practicum.explorewithme.comment.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.explorewithme.api.user.cache.UserCache;
+import ru.practicum.explorewithme.comment.client.user.UserClient;
+
+import java.time.Duration;
+
+@Configuration
+public class UserCacheConfig {
+    @Bean
+    public UserCache userCache(
+            UserClient userClient,
+            MeterRegistry meterRegistry,
+            @Value("${ru.practicum.explorewithme.cache.users.maxSize:10000}") long maxSize,
+            @Value("${ru.practicum.explorewithme.cache.users.ttlSeconds:300}") long ttlSeconds
+    ) {
+        UserCache userCache = new UserCache(userClient, maxSize, Duration.ofSeconds(ttlSeconds));
+        CaffeineCacheMetrics.monitor(meterRegistry, userCache.getCache(), "users");
+        return userCache;
+    }
+}
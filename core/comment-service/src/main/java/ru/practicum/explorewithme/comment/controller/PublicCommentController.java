@@ -8,6 +8,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.explorewithme.api.http.ConditionalGet;
+import ru.practicum.explorewithme.comment.config.ConditionalGetConfig;
 import ru.practicum.explorewithme.comment.dto.ResponseCommentDto;
 import ru.practicum.explorewithme.comment.service.PublicCommentService;
 
@@ -21,6 +23,7 @@ public class PublicCommentController {
     private final PublicCommentService publicCommentService;
 
     @GetMapping("/{eventId}/comments")
+    @ConditionalGet(ConditionalGetConfig.EVENT_COMMENTS)
     @ResponseStatus(HttpStatus.OK)
     public List<ResponseCommentDto> getCommentsByEventId(
             @Positive @PathVariable Long eventId,
@@ -31,6 +34,7 @@ public class PublicCommentController {
     }
 
     @GetMapping("/comments")
+    @ConditionalGet(ConditionalGetConfig.COMMENTS)
     @ResponseStatus(HttpStatus.OK)
     public List<ResponseCommentDto> getAllCommentsByEventIds(
             @NotNull @RequestParam("eventIds") List<Long> eventIds,
@@ -2,6 +2,7 @@ package ru.practicum.explorewithme.comment.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -32,6 +33,8 @@ public class AdminCommentServiceImpl implements AdminCommentService {
 
     private final CommentMapper commentMapper;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     @Override
     public List<ResponseCommentDto> getAll(Status status, int from, int size) {
         log.info("Get all comments with status={} from={} size={}", status, from, size);
@@ -81,6 +84,7 @@ public class AdminCommentServiceImpl implements AdminCommentService {
         commentMapper.updateCommentStatusFromDto(commentDto, comment);
 
         commentRepository.save(comment);
+        eventPublisher.publishEvent(new CommentsChanged(eventId));
 
         log.debug("Updated comment={}", comment);
     }
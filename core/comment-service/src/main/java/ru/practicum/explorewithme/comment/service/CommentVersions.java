@@ -0,0 +1,44 @@
+package ru.practicum.explorewithme.comment.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.explorewithme.api.http.ResourceVersions;
+
+import java.time.Duration;
+
+/**
+ * Версии публичных комментариев для ETag: по событию и общая для выборки по нескольким событиям.
+ */
+@Component
+public class CommentVersions {
+
+    private static final String ALL = "comments";
+
+    private final ResourceVersions versions;
+
+    public CommentVersions(
+            MeterRegistry meterRegistry,
+            @Value("${ru.practicum.explorewithme.http.versions.maxSize:10000}") long maxSize,
+            @Value("${ru.practicum.explorewithme.http.versions.maxAgeSeconds:60}") long maxAgeSeconds
+    ) {
+        this.versions = new ResourceVersions(maxSize, Duration.ofSeconds(maxAgeSeconds));
+        CaffeineCacheMetrics.monitor(meterRegistry, versions.getCache(), "responseVersions");
+    }
+
+    public String eventCommentsETag(Long eventId) {
+        return versions.etag(eventId);
+    }
+
+    public String allCommentsETag() {
+        return versions.etag(ALL);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentsChanged(CommentsChanged changed) {
+        versions.bump(changed.eventId());
+        versions.bump(ALL);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.explorewithme.comment.service;
+
+/**
+ * Изменились комментарии события.
+ */
+public record CommentsChanged(Long eventId) {
+}
@@ -2,13 +2,14 @@ package ru.practicum.explorewithme.comment.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.explorewithme.api.event.dto.EventFullDto;
 import ru.practicum.explorewithme.api.event.enums.EventState;
 import ru.practicum.explorewithme.api.user.dto.UserDto;
 import ru.practicum.explorewithme.comment.client.event.EventClient;
-import ru.practicum.explorewithme.comment.client.user.UserClient;
+import ru.practicum.explorewithme.api.user.cache.UserCache;
 import ru.practicum.explorewithme.comment.dao.CommentRepository;
 import ru.practicum.explorewithme.comment.dto.NewCommentDto;
 import ru.practicum.explorewithme.comment.dto.ResponseCommentDto;
@@ -23,13 +24,14 @@ import ru.practicum.explorewithme.comment.model.Comment;
 @Slf4j
 @Transactional
 public class PrivateCommentServiceImpl implements PrivateCommentService {
-    private final UserClient userClient;
+    private final UserCache userCache;
     private final EventClient eventClient;
     private final CommentRepository commentRepository;
     private final CommentMapper commentMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ResponseCommentDto create(Long userId, Long eventId, NewCommentDto dto) {
-        UserDto userDto = userClient.getUserById(userId);
+        UserDto userDto = userCache.getUserById(userId);
         EventFullDto eventDto = eventClient.getByIdAndState(eventId, null);
 
         if (!eventDto.getState().equals(EventState.PUBLISHED.name())) {
@@ -39,6 +41,7 @@ public class PrivateCommentServiceImpl implements PrivateCommentService {
 
         Comment comment = commentMapper.toComment(dto, eventDto, userDto);
         commentRepository.save(comment);
+        eventPublisher.publishEvent(new CommentsChanged(eventId));
 
         log.info("Новый комментарий создан: {}", comment);
         return commentMapper.toResponseCommentDto(comment);
@@ -47,6 +50,7 @@ public class PrivateCommentServiceImpl implements PrivateCommentService {
     public ResponseCommentDto patch(Long userId, Long eventId, Long commentId, NewCommentDto dto) {
         Comment comment = validateComment(userId, eventId, commentId);
         commentMapper.updateCommentTextFromDto(dto, comment);
+        eventPublisher.publishEvent(new CommentsChanged(eventId));
         log.info("Комментарий с ID {} изменен.", commentId);
         return commentMapper.toResponseCommentDto(comment);
     }
@@ -54,11 +58,12 @@ public class PrivateCommentServiceImpl implements PrivateCommentService {
     public void delete(Long userId, Long eventId, Long commentId) {
         validateComment(userId, eventId, commentId);
         commentRepository.deleteById(commentId);
+        eventPublisher.publishEvent(new CommentsChanged(eventId));
         log.info("Комментарий с ID {} успешно удален.", commentId);
     }
 
     private Comment validateComment(Long userId, Long eventId, Long commentId) {
-        userClient.getUserById(userId);
+        userCache.getUserById(userId);
         eventClient.getByIdAndState(eventId, null);
 
         Comment comment = commentRepository.findById(commentId)
@@ -113,7 +113,7 @@ class AdminCompilationControllerTest {
         when(userClient.getAllByIds(anySet()))
                 .thenReturn(List.of(new UserDto(1L, "Иванов Иван", "ivanov@mail.ru")));
 
-        when(statsClient.getStats(any()))
+        when(statsClient.query(any()))
                 .thenReturn(List.of(new StatsView("app_name", "/events/1", 1L)));
 
         when(requestClient.getRequestsCountsByStatusAndEventIds(eq(RequestStatus.CONFIRMED), anySet()))
@@ -3,6 +3,7 @@ package ru.practicum.explorewithme;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {
         "ru.practicum.explorewithme.event",
@@ -12,6 +13,7 @@ import org.springframework.cloud.openfeign.EnableFeignClients;
         "ru.practicum.client"
 })
 @EnableFeignClients
+@EnableScheduling
 public class EventService {
     public static void main(String[] args) {
         SpringApplication.run(EventService.class, args);
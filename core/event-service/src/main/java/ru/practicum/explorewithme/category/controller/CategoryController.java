@@ -12,7 +12,9 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.explorewithme.api.category.dto.ResponseCategoryDto;
 import ru.practicum.explorewithme.api.category.service.CategoryServiceApi;
+import ru.practicum.explorewithme.api.http.ConditionalGet;
 import ru.practicum.explorewithme.category.service.CategoryService;
+import ru.practicum.explorewithme.event.config.ConditionalGetConfig;
 
 import java.util.List;
 import java.util.Set;
@@ -25,6 +27,7 @@ public class CategoryController implements CategoryServiceApi {
     private final CategoryService categoryService;
 
     @GetMapping(path = CategoryServiceApi.URL, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ConditionalGet(ConditionalGetConfig.CATEGORIES)
     @ResponseStatus(HttpStatus.OK)
     public List<ResponseCategoryDto> getAll(
             @PositiveOrZero @RequestParam(defaultValue = "0") int from,
@@ -34,6 +37,7 @@ public class CategoryController implements CategoryServiceApi {
     }
 
     @Override
+    @ConditionalGet(ConditionalGetConfig.CATEGORIES)
     public ResponseCategoryDto getById(Long catId) {
         return categoryService.getById(catId);
     }
@@ -1,6 +1,7 @@
 package ru.practicum.explorewithme.category.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -11,6 +12,7 @@ import ru.practicum.explorewithme.category.dto.RequestCategoryDto;
 import ru.practicum.explorewithme.category.mapper.CategoryMapper;
 import ru.practicum.explorewithme.category.model.Category;
 import ru.practicum.explorewithme.event.dao.EventRepository;
+import ru.practicum.explorewithme.shared.cache.CategoryCache;
 import ru.practicum.explorewithme.shared.error.exception.NotFoundException;
 import ru.practicum.explorewithme.shared.error.exception.RuleViolationException;
 
@@ -28,6 +30,10 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final EventRepository eventRepository;
 
+    private final CategoryCache categoryCache;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     /** === Public endpoints accessible to all users. === */
 
     @Override
@@ -41,9 +47,7 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Override
     public ResponseCategoryDto getById(Long catId) {
-        return categoryRepository.findById(catId)
-                .map(categoryMapper::toCategoryDto)
-                .orElseThrow(() -> new NotFoundException("Category with id=" + catId + " was not found"));
+        return categoryCache.get(catId);
     }
 
     @Override
@@ -61,6 +65,7 @@ public class CategoryServiceImpl implements CategoryService {
         Category newCategory = categoryMapper.toCategory(categoryDto);
 
         Category saved = categoryRepository.save(newCategory);
+        eventPublisher.publishEvent(new CategoryCache.CategoriesChanged());
 
         return categoryMapper.toCategoryDto(saved);
     }
@@ -74,6 +79,7 @@ public class CategoryServiceImpl implements CategoryService {
         categoryMapper.updateCategoryFromDto(categoryDto, fromDb);
 
         Category updated = categoryRepository.save(fromDb);
+        eventPublisher.publishEvent(new CategoryCache.CategoriesChanged());
 
         return categoryMapper.toCategoryDto(updated);
     }
@@ -90,6 +96,7 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         categoryRepository.deleteById(catId);
+        eventPublisher.publishEvent(new CategoryCache.CategoriesChanged());
     }
 
 }
@@ -7,10 +7,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import ru.practicum.explorewithme.compilation.dto.ResponseCompilationDto;
+import ru.practicum.explorewithme.api.http.ConditionalGet;
 import ru.practicum.explorewithme.compilation.service.CompilationService;
-
-import java.util.List;
+import ru.practicum.explorewithme.event.config.ConditionalGetConfig;
 
 @RestController
 @Validated
@@ -23,8 +22,9 @@ public class CompilationController {
     private final CompilationService compilationService;
 
     @GetMapping
+    @ConditionalGet(ConditionalGetConfig.COMPILATIONS)
     @ResponseStatus(HttpStatus.OK)
-    public List<ResponseCompilationDto> getAll(
+    public byte[] getAll(
             @RequestParam(required = false) Boolean pinned,
             @PositiveOrZero @RequestParam(defaultValue = "0") int from,
             @Positive @RequestParam(defaultValue = "10") int size
@@ -33,8 +33,9 @@ public class CompilationController {
     }
 
     @GetMapping("/{compId}")
+    @ConditionalGet(ConditionalGetConfig.COMPILATIONS)
     @ResponseStatus(HttpStatus.OK)
-    public ResponseCompilationDto getById(@Positive @PathVariable Long compId) {
+    public byte[] getById(@Positive @PathVariable Long compId) {
         return compilationService.getCompilation(compId);
     }
 
@@ -1,12 +1,19 @@
 package ru.practicum.explorewithme.compilation.dao;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.explorewithme.compilation.model.Compilation;
 
+import java.util.List;
+
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
 
-    Page<Compilation> findAllByPinned(Boolean pinned, Pageable pageable);
+    @Query("SELECT c.id FROM Compilation c WHERE (:pinned IS NULL OR c.pinned = :pinned)")
+    List<Long> findIds(@Param("pinned") Boolean pinned, Pageable pageable);
+
+    @Query("SELECT c.id FROM Compilation c WHERE c.pinned = :pinned ORDER BY c.id")
+    List<Long> findIdsByPinned(@Param("pinned") boolean pinned);
 
 }
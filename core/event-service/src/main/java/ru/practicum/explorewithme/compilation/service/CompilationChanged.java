@@ -0,0 +1,7 @@
+package ru.practicum.explorewithme.compilation.service;
+
+/**
+ * Подборка создана, изменена или удалена.
+ */
+public record CompilationChanged(Long compilationId) {
+}
@@ -4,13 +4,17 @@ import ru.practicum.explorewithme.compilation.dto.CreateCompilationDto;
 import ru.practicum.explorewithme.compilation.dto.ResponseCompilationDto;
 import ru.practicum.explorewithme.compilation.dto.UpdateCompilationDto;
 
-import java.util.List;
-
 public interface CompilationService {
 
-    List<ResponseCompilationDto> getCompilations(Boolean pinned, int from, int size);
+    /**
+     * JSON-массив подборок в порядке id.
+     */
+    byte[] getCompilations(Boolean pinned, int from, int size);
 
-    ResponseCompilationDto getCompilation(long compId);
+    /**
+     * JSON подборки.
+     */
+    byte[] getCompilation(long compId);
 
     ResponseCompilationDto save(CreateCompilationDto requestCompilationDto);
 
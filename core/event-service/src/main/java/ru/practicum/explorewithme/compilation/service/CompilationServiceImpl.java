@@ -2,36 +2,28 @@ package ru.practicum.explorewithme.compilation.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.client.StatsClient;
-import ru.practicum.explorewithme.api.category.dto.ResponseCategoryDto;
 import ru.practicum.explorewithme.api.event.dto.EventShortDto;
-import ru.practicum.explorewithme.api.request.enums.RequestStatus;
-import ru.practicum.explorewithme.api.user.dto.UserShortDto;
-import ru.practicum.explorewithme.category.dao.CategoryRepository;
-import ru.practicum.explorewithme.category.mapper.CategoryMapper;
 import ru.practicum.explorewithme.compilation.dao.CompilationRepository;
 import ru.practicum.explorewithme.compilation.dto.CreateCompilationDto;
 import ru.practicum.explorewithme.compilation.dto.ResponseCompilationDto;
 import ru.practicum.explorewithme.compilation.dto.UpdateCompilationDto;
 import ru.practicum.explorewithme.compilation.mapper.CompilationMapper;
 import ru.practicum.explorewithme.compilation.model.Compilation;
-import ru.practicum.explorewithme.event.client.request.RequestClient;
-import ru.practicum.explorewithme.event.client.user.UserClient;
 import ru.practicum.explorewithme.event.dao.EventRepository;
-import ru.practicum.explorewithme.event.mapper.EventMapper;
-import ru.practicum.explorewithme.event.mapper.UserMapper;
 import ru.practicum.explorewithme.event.model.Event;
-import ru.practicum.explorewithme.shared.util.CategoryServiceUtil;
-import ru.practicum.explorewithme.shared.util.EventServiceUtil;
+import ru.practicum.explorewithme.shared.enrichment.EventEnrichmentService;
 import ru.practicum.explorewithme.shared.error.exception.NotFoundException;
 
-import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -41,87 +33,39 @@ public class CompilationServiceImpl implements CompilationService {
 
     private final CompilationRepository compilationRepository;
     private final EventRepository eventRepository;
-    private final CategoryRepository categoryRepository;
 
-    private final UserClient userClient;
-    private final RequestClient requestClient;
-    private final StatsClient statsClient;
+    private final EventEnrichmentService eventEnrichmentService;
 
     private final CompilationMapper compilationMapper;
-    private final EventMapper eventMapper;
-    private final UserMapper userMapper;
-    private final CategoryMapper categoryMapper;
+
+    private final CompilationViewCache compilationViewCache;
+
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * === Public endpoints accessible to all users. ===
      */
 
     @Override
-    public List<ResponseCompilationDto> getCompilations(Boolean pinned, int from, int size) {
+    public byte[] getCompilations(Boolean pinned, int from, int size) {
         log.info("Get compilations with pinned={} from={} size={}", pinned, from, size);
-        Pageable pageable = PageRequest.of(from / size, size);
 
-        List<Compilation> compilations;
-
-        if (pinned == null) {
-            compilations = compilationRepository
-                    .findAll(pageable)
-                    .toList();
+        List<Long> compIds;
+        if (Boolean.TRUE.equals(pinned)) {
+            List<Long> pinnedIds = compilationViewCache.getPinnedIds();
+            compIds = pinnedIds.subList(Math.min(from, pinnedIds.size()), Math.min(from + size, pinnedIds.size()));
         } else {
-            compilations = compilationRepository
-                    .findAllByPinned(pinned, pageable)
-                    .toList();
-        }
-
-        Set<Long> eventIds = compilations.stream()
-                .map(Compilation::getEventIds)
-                .flatMap(Set::stream)
-                .collect(Collectors.toSet());
-
-        if (eventIds.isEmpty()) {
-            return compilations.stream()
-                    .map(compilation -> compilationMapper.toCompilationDto(compilation, Collections.emptyList()))
-                    .collect(Collectors.toList());
+            Pageable pageable = PageRequest.of(from / size, size, Sort.by("id"));
+            compIds = compilationRepository.findIds(pinned, pageable);
         }
 
-        List<EventShortDto> allEventDtos = getCompilationEventDtos(eventIds);
-
-        Map<Long, EventShortDto> eventDtoMap = allEventDtos.stream()
-                .collect(Collectors.toMap(
-                        EventShortDto::getId,
-                        Function.identity()
-                ));
-
-        Map<Long, List<EventShortDto>> compilationEventsMap = compilations.stream()
-                .collect(Collectors.toMap(
-                        Compilation::getId,
-                        c -> c.getEventIds().stream()
-                                .map(eventDtoMap::get)
-                                .collect(Collectors.toList())
-                ));
-
-        return compilations.stream()
-                .map(c -> {
-                    List<EventShortDto> eventDtos = compilationEventsMap.getOrDefault(c.getId(), Collections.emptyList());
-
-                    return compilationMapper.toCompilationDto(c, eventDtos);
-                })
-                .toList();
+        return compilationViewCache.getArray(compIds);
     }
 
     @Override
-    public ResponseCompilationDto getCompilation(long compId) {
+    public byte[] getCompilation(long compId) {
         log.info("Get compilation with id={}", compId);
-        Compilation compilation = compilationRepository.findById(compId)
-                .orElseThrow(() -> new NotFoundException("Compilation with id=" + compId + " was not found"));
-
-        if (compilation.getEventIds().isEmpty()) {
-            return compilationMapper.toCompilationDto(compilation, Collections.emptyList());
-        }
-
-        List<EventShortDto> eventShortDtos = getCompilationEventDtos(compilation.getEventIds());
-
-        return compilationMapper.toCompilationDto(compilation, eventShortDtos);
+        return compilationViewCache.get(compId);
     }
 
     /**
@@ -137,12 +81,14 @@ public class CompilationServiceImpl implements CompilationService {
 
         if (requestCompilationDto.getEvents() == null || requestCompilationDto.getEvents().isEmpty()) {
             Compilation saved = compilationRepository.save(newCompilation);
+            eventPublisher.publishEvent(new CompilationChanged(saved.getId()));
             return compilationMapper.toCompilationDto(saved, Collections.emptyList());
         }
 
         newCompilation.setEventIds(requestCompilationDto.getEvents());
 
         Compilation saved = compilationRepository.saveAndFlush(newCompilation);
+        eventPublisher.publishEvent(new CompilationChanged(saved.getId()));
 
         List<EventShortDto> eventShortDtos = getCompilationEventDtos(requestCompilationDto.getEvents());
 
@@ -156,6 +102,7 @@ public class CompilationServiceImpl implements CompilationService {
                 .orElseThrow(() -> new NotFoundException("Compilation with id=" + compId + " was not found"));
 
         compilationMapper.updateCompilationFromDto(updateCompilationDto, fromDb);
+        eventPublisher.publishEvent(new CompilationChanged(compId));
 
         if (updateCompilationDto.getEvents() == null || updateCompilationDto.getEvents().isEmpty()) {
             Compilation updated = compilationRepository.save(fromDb);
@@ -179,6 +126,7 @@ public class CompilationServiceImpl implements CompilationService {
         }
 
         compilationRepository.deleteById(compId);
+        eventPublisher.publishEvent(new CompilationChanged(compId));
     }
 
     private List<EventShortDto> getCompilationEventDtos(Set<Long> eventIds) {
@@ -188,21 +136,7 @@ public class CompilationServiceImpl implements CompilationService {
 
         List<Event> events = eventRepository.findAllById(new ArrayList<>(eventIds));
 
-        Map<Long, Long> confirmedRequests = requestClient.getRequestsCountsByStatusAndEventIds(RequestStatus.CONFIRMED, eventIds);
-        Map<Long, Long> views = EventServiceUtil.getStatsViewsMap(statsClient, eventIds);
-
-        Set<Long> userIds = events.stream()
-                .map(Event::getInitiatorId)
-                .collect(Collectors.toSet());
-        Set<Long> categoryIds = events.stream()
-                .map(Event::getCategoryId)
-                .collect(Collectors.toSet());
-
-        Map<Long, UserShortDto> userShortDtos = EventServiceUtil.getUserShortDtoMap(userClient, userIds, userMapper);
-
-        Map<Long, ResponseCategoryDto> categoryDtos = CategoryServiceUtil.getResponseCategoryDtoMap(categoryRepository, categoryMapper, categoryIds);
-
-        return EventServiceUtil.getEventShortDtos(userShortDtos, categoryDtos, events, confirmedRequests, views, eventMapper);
+        return eventEnrichmentService.toShortDtos(events, EventEnrichmentService.ALL_SOURCES);
     }
 
 }
@@ -0,0 +1,212 @@
+package ru.practicum.explorewithme.compilation.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.explorewithme.api.event.dto.EventShortDto;
+import ru.practicum.explorewithme.compilation.dao.CompilationRepository;
+import ru.practicum.explorewithme.compilation.dto.ResponseCompilationDto;
+import ru.practicum.explorewithme.compilation.mapper.CompilationMapper;
+import ru.practicum.explorewithme.compilation.model.Compilation;
+import ru.practicum.explorewithme.event.dao.EventRepository;
+import ru.practicum.explorewithme.event.service.EventChanged;
+import ru.practicum.explorewithme.shared.cache.CategoryCache;
+import ru.practicum.explorewithme.shared.enrichment.EventEnrichmentService;
+import ru.practicum.explorewithme.shared.error.exception.NotFoundException;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Материализованные ответы публичных эндпоинтов подборок: JSON каждой подборки хранится готовыми байтами,
+ * список закреплённых подборок - списком id. Список закреплённых сбрасывается после изменения подборки в этом
+ * экземпляре, изменения из других экземпляров видны не позже чем через pinnedMaxAgeSeconds.
+ * <p>
+ * Подборка перестраивается:
+ * <ul>
+ *     <li>после изменения самой подборки ({@link CompilationChanged});</li>
+ *     <li>после изменения входящего в неё события или его подтверждённых заявок ({@link EventChanged},
+ *     подборки находятся по обратному индексу событие -> подборки);</li>
+ *     <li>после изменения категорий - сбрасываются все подборки;</li>
+ *     <li>по истечении viewsMaxAgeSeconds: просмотры отстают не больше чем на это окно, устаревший ответ
+ *     отдаётся, пока новый строится в фоне.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class CompilationViewCache {
+
+    private static final byte[] EMPTY_ARRAY = "[]".getBytes();
+
+    private final CompilationRepository compilationRepository;
+    private final EventRepository eventRepository;
+    private final EventEnrichmentService eventEnrichmentService;
+    private final CompilationMapper compilationMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    private final LoadingCache<Long, Materialized> cache;
+    // событие -> подборки, в JSON которых оно входит; лишние записи приводят только к лишней перестройке
+    private final Map<Long, Set<Long>> compilationsByEvent = new ConcurrentHashMap<>();
+    // единственный ключ - список закреплённых подборок
+    private final LoadingCache<Boolean, List<Long>> pinnedIds;
+
+    public CompilationViewCache(
+            CompilationRepository compilationRepository,
+            EventRepository eventRepository,
+            EventEnrichmentService eventEnrichmentService,
+            CompilationMapper compilationMapper,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${ru.practicum.explorewithme.cache.compilations.enabled:true}") boolean enabled,
+            @Value("${ru.practicum.explorewithme.cache.compilations.maxSize:1000}") long maxSize,
+            @Value("${ru.practicum.explorewithme.cache.compilations.viewsMaxAgeSeconds:60}") long viewsMaxAgeSeconds,
+            @Value("${ru.practicum.explorewithme.cache.compilations.pinnedMaxAgeSeconds:10}") long pinnedMaxAgeSeconds
+    ) {
+        this.compilationRepository = compilationRepository;
+        this.eventRepository = eventRepository;
+        this.eventEnrichmentService = eventEnrichmentService;
+        this.compilationMapper = compilationMapper;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(Duration.ofSeconds(viewsMaxAgeSeconds))
+                .removalListener((Long compId, Materialized value, RemovalCause cause) -> {
+                    if (compId != null && value != null && cause != RemovalCause.REPLACED) {
+                        value.eventIds().forEach(eventId -> compilationsByEvent.computeIfPresent(eventId,
+                                (k, comps) -> comps.remove(compId) && comps.isEmpty() ? null : comps));
+                    }
+                })
+                .recordStats()
+                .build(this::build);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "compilations");
+        this.pinnedIds = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(Duration.ofSeconds(pinnedMaxAgeSeconds))
+                .build(pinned -> List.copyOf(compilationRepository.findIdsByPinned(pinned)));
+    }
+
+    /**
+     * JSON подборки.
+     */
+    public byte[] get(Long compId) {
+        Materialized materialized = enabled ? cache.get(compId) : build(compId);
+        if (materialized == null) {
+            throw new NotFoundException("Compilation with id=" + compId + " was not found");
+        }
+        return materialized.json();
+    }
+
+    /**
+     * JSON-массив подборок в порядке id; удалённые к этому моменту подборки пропускаются.
+     */
+    public byte[] getArray(List<Long> compIds) {
+        if (compIds.isEmpty()) {
+            return EMPTY_ARRAY;
+        }
+        Collection<Materialized> values;
+        if (enabled) {
+            values = cache.getAll(compIds).values();
+        } else {
+            values = new ArrayList<>();
+            for (Long compId : compIds) {
+                Materialized materialized = build(compId);
+                if (materialized != null) {
+                    values.add(materialized);
+                }
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('[');
+        boolean first = true;
+        for (Materialized materialized : values) {
+            if (!first) {
+                out.write(',');
+            }
+            out.writeBytes(materialized.json());
+            first = false;
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    /**
+     * Id закреплённых подборок в порядке id.
+     */
+    public List<Long> getPinnedIds() {
+        return enabled ? pinnedIds.get(true) : List.copyOf(compilationRepository.findIdsByPinned(true));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCompilationChanged(CompilationChanged changed) {
+        cache.invalidate(changed.compilationId());
+        // Загрузка, прочитавшая список до фиксации, завершается раньше сброса и удаляется им
+        pinnedIds.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChanged changed) {
+        Set<Long> compIds = compilationsByEvent.get(changed.eventId());
+        if (compIds != null) {
+            cache.invalidateAll(Set.copyOf(compIds));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoriesChanged(CategoryCache.CategoriesChanged changed) {
+        cache.invalidateAll();
+    }
+
+    private Materialized build(Long compId) {
+        return readOnlyTransaction.execute(status -> {
+            Compilation compilation = compilationRepository.findById(compId).orElse(null);
+            if (compilation == null) {
+                return null;
+            }
+            Set<Long> eventIds = Set.copyOf(compilation.getEventIds());
+            List<EventShortDto> events = eventIds.isEmpty()
+                    ? List.of()
+                    : eventEnrichmentService.toShortDtos(eventRepository.findAllById(eventIds),
+                    EventEnrichmentService.ALL_SOURCES);
+            ResponseCompilationDto dto = compilationMapper.toCompilationDto(compilation, events);
+
+            Materialized materialized;
+            try {
+                materialized = new Materialized(objectMapper.writeValueAsBytes(dto), eventIds);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Не удалось сериализовать подборку " + compId, e);
+            }
+            if (enabled) {
+                eventIds.forEach(eventId -> compilationsByEvent
+                        .computeIfAbsent(eventId, k -> ConcurrentHashMap.newKeySet())
+                        .add(compId));
+            }
+            return materialized;
+        });
+    }
+
+    private record Materialized(byte[] json, Set<Long> eventIds) {
+    }
+}
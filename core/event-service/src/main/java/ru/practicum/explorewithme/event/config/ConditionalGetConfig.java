@@ -0,0 +1,60 @@
+package ru.practicum.explorewithme.event.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.practicum.explorewithme.api.http.ConditionalGetInterceptor;
+import ru.practicum.explorewithme.api.http.ConditionalGetResponseAdvice;
+import ru.practicum.explorewithme.api.http.ConditionalGetRule;
+import ru.practicum.explorewithme.shared.cache.PublicResponseVersions;
+
+import java.util.Map;
+
+@Configuration
+@RequiredArgsConstructor
+public class ConditionalGetConfig implements WebMvcConfigurer {
+
+    public static final String EVENT = "event";
+    public static final String EVENTS = "events";
+    public static final String CATEGORIES = "categories";
+    public static final String COMPILATIONS = "compilations";
+
+    private final PublicResponseVersions versions;
+
+    @Value("${ru.practicum.explorewithme.http.maxAgeSeconds.events:0}")
+    private long eventsMaxAge;
+
+    @Value("${ru.practicum.explorewithme.http.sharedMaxAgeSeconds.events:0}")
+    private long eventsSharedMaxAge;
+
+    @Value("${ru.practicum.explorewithme.http.maxAgeSeconds.categories:60}")
+    private long categoriesMaxAge;
+
+    @Value("${ru.practicum.explorewithme.http.maxAgeSeconds.compilations:0}")
+    private long compilationsMaxAge;
+
+    @Value("${ru.practicum.explorewithme.http.sharedMaxAgeSeconds.compilations:0}")
+    private long compilationsSharedMaxAge;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ConditionalGetInterceptor(Map.of(
+                EVENT, ConditionalGetRule.of(request -> {
+                    Long eventId = ConditionalGetRule.pathId(request, "eventId");
+                    return eventId == null ? null : versions.eventETag(eventId);
+                }, eventsMaxAge),
+                EVENTS, ConditionalGetRule.of(request -> versions.eventsETag(), eventsMaxAge, eventsSharedMaxAge),
+                CATEGORIES, ConditionalGetRule.of(request -> versions.categoriesETag(), categoriesMaxAge),
+                COMPILATIONS, ConditionalGetRule.of(request -> versions.compilationsETag(), compilationsMaxAge,
+                        compilationsSharedMaxAge)
+        )));
+    }
+
+    @Bean
+    public ConditionalGetResponseAdvice conditionalGetResponseAdvice() {
+        return new ConditionalGetResponseAdvice();
+    }
+}
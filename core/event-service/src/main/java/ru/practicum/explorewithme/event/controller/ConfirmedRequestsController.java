@@ -0,0 +1,26 @@
+package ru.practicum.explorewithme.event.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.explorewithme.api.event.dto.ConfirmedRequestsDto;
+import ru.practicum.explorewithme.api.event.service.ConfirmedRequestsApi;
+import ru.practicum.explorewithme.event.service.ConfirmedRequestsService;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@Validated
+@RequiredArgsConstructor
+public class ConfirmedRequestsController implements ConfirmedRequestsApi {
+
+    private final ConfirmedRequestsService confirmedRequestsService;
+
+    @Override
+    public void updateConfirmedRequests(List<ConfirmedRequestsDto> counts) {
+        log.debug("Получены подтверждённые заявки {} событий", counts.size());
+        confirmedRequestsService.update(counts);
+    }
+}
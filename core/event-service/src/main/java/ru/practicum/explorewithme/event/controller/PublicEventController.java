@@ -14,6 +14,8 @@ import ru.practicum.explorewithme.api.event.dto.EventFullDto;
 import ru.practicum.explorewithme.api.event.dto.EventShortDto;
 import ru.practicum.explorewithme.api.event.enums.EventState;
 import ru.practicum.explorewithme.api.event.service.EventServiceApi;
+import ru.practicum.explorewithme.api.http.ConditionalGet;
+import ru.practicum.explorewithme.event.config.ConditionalGetConfig;
 import ru.practicum.explorewithme.event.dto.EventParams;
 import ru.practicum.explorewithme.event.enums.EventsSort;
 import ru.practicum.explorewithme.event.service.PublicEventService;
@@ -30,6 +32,7 @@ public class PublicEventController implements EventServiceApi {
     private final PublicEventService publicEventService;
 
     @GetMapping(path = EventServiceApi.URL)
+    @ConditionalGet(ConditionalGetConfig.EVENTS)
     public List<EventShortDto> getAllByParams(
             @RequestParam(required = false) String text,
             @RequestParam(required = false) List<Long> categories,
@@ -57,6 +60,7 @@ public class PublicEventController implements EventServiceApi {
     }
 
     @GetMapping(path = EventServiceApi.URL + "/{eventId}")
+    @ConditionalGet(ConditionalGetConfig.EVENT)
     public EventFullDto getById(
             @PathVariable @Positive Long eventId,
             HttpServletRequest request
@@ -0,0 +1,47 @@
+package ru.practicum.explorewithme.event.dao;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.explorewithme.api.event.dto.ConfirmedRequestsDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class EventConfirmedRequestsRepository {
+
+    // Значение применяется, только если оно новее сохранённого: запоздавшая доставка не откатывает счётчик
+    private static final String UPDATE_SQL = "UPDATE events SET confirmed_requests = ?, confirmed_requests_version = ? " +
+            "WHERE id = ? AND confirmed_requests_version < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Сохраняет числа подтверждённых заявок с версией новее сохранённой.
+     *
+     * @return ID событий, у которых счётчик изменился
+     */
+    public List<Long> update(List<ConfirmedRequestsDto> counts) {
+        // Строки обновляются в порядке ID, чтобы параллельные пакеты блокировали их в одном порядке
+        List<ConfirmedRequestsDto> rows = counts.stream()
+                .sorted(Comparator.comparing(ConfirmedRequestsDto::getEventId))
+                .toList();
+        int[][] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.getCount());
+            ps.setLong(2, row.getVersion());
+            ps.setLong(3, row.getEventId());
+            ps.setLong(4, row.getVersion());
+        });
+
+        List<Long> changed = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (updated[0][i] > 0) {
+                changed.add(rows.get(i).getEventId());
+            }
+        }
+        return changed;
+    }
+}
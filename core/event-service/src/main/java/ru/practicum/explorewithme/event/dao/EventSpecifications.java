@@ -1,10 +1,13 @@
 package ru.practicum.explorewithme.event.dao;
 
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
+import ru.practicum.explorewithme.api.event.enums.EventState;
 import ru.practicum.explorewithme.event.dto.AdminEventDto;
 import ru.practicum.explorewithme.event.dto.EventParams;
+import ru.practicum.explorewithme.event.enums.EventsSort;
 import ru.practicum.explorewithme.event.model.Event;
 
 import java.util.ArrayList;
@@ -13,6 +16,8 @@ import java.util.List;
 @Component
 public class EventSpecifications {
 
+    private static final char LIKE_ESCAPE = '\\';
+
     public static Specification<Event> adminSpecification(AdminEventDto adminEventDto) {
         return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
@@ -45,10 +50,14 @@ public class EventSpecifications {
         return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            if (params.getText() != null && !params.getText().isEmpty()) {
-                String searchPattern = "%" + params.getText().toLowerCase() + "%";
-                Predicate annotationPredicate = cb.like(cb.lower(root.get("annotation")), searchPattern);
-                Predicate descriptionPredicate = cb.like(cb.lower(root.get("description")), searchPattern);
+            predicates.add(cb.equal(root.get("state"), EventState.PUBLISHED));
+
+            boolean hasText = params.getText() != null && !params.getText().isEmpty();
+            if (hasText) {
+                // Условия в форме lower(...) LIKE обслуживаются триграммными GIN-индексами из schema.sql
+                String searchPattern = "%" + escapeLike(params.getText().toLowerCase()) + "%";
+                Predicate annotationPredicate = cb.like(cb.lower(root.get("annotation")), searchPattern, LIKE_ESCAPE);
+                Predicate descriptionPredicate = cb.like(cb.lower(root.get("description")), searchPattern, LIKE_ESCAPE);
                 predicates.add(cb.or(annotationPredicate, descriptionPredicate));
             }
 
@@ -69,11 +78,31 @@ public class EventSpecifications {
             }
 
             if (params.getOnlyAvailable()) {
-                query.groupBy(root.get("id"));
-                query.having(cb.equal(root.get("participantLimit"), 0));
+                predicates.add(cb.or(
+                        cb.equal(root.get("participantLimit"), 0),
+                        cb.gt(root.get("participantLimit"), root.get("confirmedRequests"))
+                ));
+            }
+
+            // Для RELEVANCE сортировка страницы не задаётся, порядок строится здесь; из запроса count его убирает Spring Data
+            if (params.getEventsSort() == EventsSort.RELEVANCE) {
+                if (hasText) {
+                    Expression<String> text = cb.literal(params.getText().toLowerCase());
+                    Expression<Double> relevance = cb.sum(
+                            cb.function("word_similarity", Double.class, text, cb.lower(root.get("annotation"))),
+                            cb.function("word_similarity", Double.class, text, cb.lower(root.get("description")))
+                    );
+                    query.orderBy(cb.desc(relevance), cb.asc(root.get("id")));
+                } else {
+                    query.orderBy(cb.asc(root.get("eventDate")), cb.asc(root.get("id")));
+                }
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 }
@@ -0,0 +1,49 @@
+package ru.practicum.explorewithme.event.dao;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class EventViewsRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Берёт аренду переноса просмотров на leaseMs, если её не держит другой экземпляр.
+     *
+     * @return момент, до которого хиты уже перенесены; пусто, если аренда занята
+     */
+    public Optional<LocalDateTime> tryAcquireSync(long leaseMs) {
+        List<LocalDateTime> syncedUntil = jdbcTemplate.queryForList(
+                "UPDATE event_views_sync SET locked_until = now() + ? * INTERVAL '1 millisecond' " +
+                        "WHERE id = 1 AND locked_until < now() RETURNING synced_until",
+                LocalDateTime.class, leaseMs);
+        return syncedUntil.stream().findFirst();
+    }
+
+    /**
+     * Освобождает аренду; syncedUntil - новый момент, до которого хиты перенесены, null - оставить прежний.
+     */
+    public void releaseSync(LocalDateTime syncedUntil) {
+        jdbcTemplate.update("UPDATE event_views_sync SET synced_until = COALESCE(CAST(? AS TIMESTAMP), synced_until), " +
+                "locked_until = now() WHERE id = 1", syncedUntil);
+    }
+
+    // Строки с неизменившимся числом просмотров не перезаписываются
+    public void updateViews(Map<Long, Long> views) {
+        List<Map.Entry<Long, Long>> rows = List.copyOf(views.entrySet());
+        jdbcTemplate.batchUpdate("UPDATE events SET views = ? WHERE id = ? AND views <> ?", rows, rows.size(),
+                (ps, row) -> {
+                    ps.setLong(1, row.getValue());
+                    ps.setLong(2, row.getKey());
+                    ps.setLong(3, row.getValue());
+                });
+    }
+}
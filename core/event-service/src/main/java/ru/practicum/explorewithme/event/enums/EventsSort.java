@@ -4,7 +4,9 @@ import org.springframework.data.domain.Sort;
 
 public enum EventsSort {
     EVENT_DATE("eventDate", Sort.Direction.ASC),
-    VIEWS("views", Sort.Direction.DESC);
+    VIEWS("views", Sort.Direction.DESC),
+    // Порядок по релевантности тексту задаёт EventSpecifications.publicSpecification
+    RELEVANCE(null, Sort.Direction.DESC);
 
     private final String name;
     private final Sort.Direction direction;
@@ -14,7 +16,11 @@ public enum EventsSort {
         this.direction = direction;
     }
 
+    // id - для стабильного порядка страниц при равных значениях
     public Sort getSort() {
-        return Sort.by(this.direction, this.name);
+        if (this.name == null) {
+            return Sort.unsorted();
+        }
+        return Sort.by(this.direction, this.name).and(Sort.by("id"));
     }
 }
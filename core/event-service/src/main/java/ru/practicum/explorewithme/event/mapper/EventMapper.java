@@ -23,6 +23,8 @@ public interface EventMapper {
     @Mapping(target = "publishedOn", ignore = true)
     @Mapping(target = "state", expression = "java(EventState.PENDING)")
     @Mapping(target = "createdOn", expression = "java(LocalDateTime.now())")
+    @Mapping(target = "views", ignore = true)
+    @Mapping(target = "confirmedRequests", ignore = true)
     Event toEvent(NewEventDto newEventDto, Long initiatorId, Long categoryId);
 
     @Mapping(target = "id", source = "event.id")
@@ -40,6 +42,8 @@ public interface EventMapper {
     @Mapping(target = "initiatorId", ignore = true)
     @Mapping(target = "publishedOn", ignore = true)
     @Mapping(target = "createdOn", ignore = true) // уже была создана
+    @Mapping(target = "views", ignore = true)
+    @Mapping(target = "confirmedRequests", ignore = true)
     @Mapping(target = "title", source = "updatedEvent.title")
     @Mapping(target = "annotation", source = "updatedEvent.annotation")
     @Mapping(target = "description", source = "updatedEvent.description")
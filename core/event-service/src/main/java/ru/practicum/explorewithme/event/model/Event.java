@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import ru.practicum.explorewithme.api.event.enums.EventState;
 
 import java.time.LocalDateTime;
@@ -79,6 +80,19 @@ public class Event {
     @Column(name = "published_on")
     private LocalDateTime publishedOn;
 
+    // Просмотры из сервиса статистики для сортировки по популярности; обновляет только EventViewsSynchronizer
+    @Column(name = "views", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Long views = 0L;
+
+    // Число подтверждённых заявок, присылает request-service после каждого изменения и при периодической сверке;
+    // обновляется только запросом вместе с confirmed_requests_version
+    @Column(name = "confirmed_requests", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Long confirmedRequests = 0L;
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
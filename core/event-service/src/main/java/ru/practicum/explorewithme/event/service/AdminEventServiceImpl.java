@@ -2,20 +2,18 @@ package ru.practicum.explorewithme.event.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.client.StatsClient;
 import ru.practicum.explorewithme.api.category.dto.ResponseCategoryDto;
 import ru.practicum.explorewithme.api.event.dto.EventFullDto;
 import ru.practicum.explorewithme.api.event.enums.EventState;
 import ru.practicum.explorewithme.api.request.enums.RequestStatus;
 import ru.practicum.explorewithme.api.user.dto.UserShortDto;
-import ru.practicum.explorewithme.category.dao.CategoryRepository;
-import ru.practicum.explorewithme.category.mapper.CategoryMapper;
 import ru.practicum.explorewithme.event.client.request.RequestClient;
-import ru.practicum.explorewithme.event.client.user.UserClient;
+import ru.practicum.explorewithme.api.user.cache.UserCache;
 import ru.practicum.explorewithme.event.dao.EventRepository;
 import ru.practicum.explorewithme.event.dao.EventSpecifications;
 import ru.practicum.explorewithme.event.dto.AdminEventDto;
@@ -27,15 +25,14 @@ import ru.practicum.explorewithme.event.model.Event;
 import ru.practicum.explorewithme.shared.error.exception.BadRequestException;
 import ru.practicum.explorewithme.shared.error.exception.NotFoundException;
 import ru.practicum.explorewithme.shared.error.exception.RuleViolationException;
-import ru.practicum.explorewithme.shared.util.CategoryServiceUtil;
-import ru.practicum.explorewithme.shared.util.EventServiceUtil;
+import ru.practicum.explorewithme.shared.cache.CategoryCache;
+import ru.practicum.explorewithme.shared.cache.ViewsCache;
+import ru.practicum.explorewithme.shared.enrichment.EventEnrichmentService;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -44,15 +41,17 @@ import java.util.stream.Collectors;
 public class AdminEventServiceImpl implements AdminEventService {
 
     private final EventRepository eventRepository;
-    private final CategoryRepository categoryRepository;
+    private final CategoryCache categoryCache;
 
-    private final UserClient userClient;
+    private final UserCache userCache;
     private final RequestClient requestClient;
-    private final StatsClient statsClient;
+    private final ViewsCache viewsCache;
+    private final EventEnrichmentService eventEnrichmentService;
+
+    private final ApplicationEventPublisher eventPublisher;
 
     private final EventMapper eventMapper;
     private final UserMapper userMapper;
-    private final CategoryMapper categoryMapper;
 
     @Override
     public EventFullDto update(Long eventId, UpdateEventRequest updateEventRequest) throws RuleViolationException {
@@ -63,8 +62,7 @@ public class AdminEventServiceImpl implements AdminEventService {
 
         validateCriticalRules(updateEventRequest, event);
 
-        ResponseCategoryDto categoryDto = CategoryServiceUtil
-                .getResponseCategoryDto(categoryRepository, categoryMapper, event.getCategoryId());
+        ResponseCategoryDto categoryDto = categoryCache.get(event.getCategoryId());
 
         eventMapper.updateEvent(event, updateEventRequest);
 
@@ -73,16 +71,18 @@ public class AdminEventServiceImpl implements AdminEventService {
         }
 
         eventRepository.save(event);
+        eventPublisher.publishEvent(new EventChanged(eventId));
+        eventPublisher.publishEvent(new EventUpdated(eventId));
 
         Long confirmedRequests = requestClient.getRequestsCountsByStatusAndEventIds(RequestStatus.CONFIRMED, Set.of(eventId)).getOrDefault(eventId, 0L);
 
-        UserShortDto userShortDto = userMapper.toUserShortDto(userClient.getUserById(event.getInitiatorId()));
+        UserShortDto userShortDto = userMapper.toUserShortDto(userCache.getUserById(event.getInitiatorId()));
 
         if (event.getPublishedOn() == null) {
             return eventMapper.toEventFullDto(event, categoryDto, userShortDto, confirmedRequests, 0L);
         }
 
-        Long views = EventServiceUtil.getStatsViews(statsClient, event, false);
+        Long views = viewsCache.getViews(event, false);
 
         log.info("Администратором обновлено событие c ID {}.", event.getId());
 
@@ -99,28 +99,7 @@ public class AdminEventServiceImpl implements AdminEventService {
                 makePageable(adminEventDto)
         ).getContent();
 
-        Set<Long> eventIds = events.stream()
-                .map(Event::getId)
-                .collect(Collectors.toSet());
-
-        Map<Long, Long> confirmedRequests = requestClient.getRequestsCountsByStatusAndEventIds(RequestStatus.CONFIRMED, eventIds);
-
-        Map<Long, Long> views = EventServiceUtil.getStatsViewsMap(statsClient, eventIds);
-
-        Set<Long> userIds = events.stream()
-                .map(Event::getInitiatorId)
-                .collect(Collectors.toSet());
-
-        Set<Long> categoriesIds = events.stream()
-                .map(Event::getCategoryId)
-                .collect(Collectors.toSet());
-
-        Map<Long, UserShortDto> userShortDtos = EventServiceUtil.getUserShortDtoMap(userClient, userIds, userMapper);
-
-        Map<Long, ResponseCategoryDto> categoryDtos = CategoryServiceUtil
-                .getResponseCategoryDtoMap(categoryRepository, categoryMapper, categoriesIds);
-
-        return EventServiceUtil.getEventFullDtos(userShortDtos, categoryDtos, events, confirmedRequests, views, eventMapper);
+        return eventEnrichmentService.toFullDtos(events, EventEnrichmentService.ALL_SOURCES);
     }
 
     private static Pageable makePageable(AdminEventDto adminEventDto) {
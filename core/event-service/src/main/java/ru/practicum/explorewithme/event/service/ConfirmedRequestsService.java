@@ -0,0 +1,10 @@
+package ru.practicum.explorewithme.event.service;
+
+import ru.practicum.explorewithme.api.event.dto.ConfirmedRequestsDto;
+
+import java.util.List;
+
+public interface ConfirmedRequestsService {
+
+    void update(List<ConfirmedRequestsDto> counts);
+}
@@ -0,0 +1,32 @@
+package ru.practicum.explorewithme.event.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.explorewithme.api.event.dto.ConfirmedRequestsDto;
+import ru.practicum.explorewithme.event.dao.EventConfirmedRequestsRepository;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class ConfirmedRequestsServiceImpl implements ConfirmedRequestsService {
+
+    private final EventConfirmedRequestsRepository eventConfirmedRequestsRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void update(List<ConfirmedRequestsDto> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        List<Long> changed = eventConfirmedRequestsRepository.update(counts);
+        log.debug("Обновлены подтверждённые заявки {} из {} событий", changed.size(), counts.size());
+        changed.forEach(eventId -> eventPublisher.publishEvent(new EventChanged(eventId)));
+    }
+}
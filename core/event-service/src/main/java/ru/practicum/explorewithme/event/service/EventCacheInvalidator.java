@@ -0,0 +1,63 @@
+package ru.practicum.explorewithme.event.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.RestClient;
+import ru.practicum.explorewithme.api.event.service.EventCacheApi;
+
+import java.util.List;
+
+/**
+ * После изменения события сбрасывает его запись в кэшах событий всех экземпляров сервисов-потребителей.
+ * Сброс необязателен: если экземпляр недоступен, запись устареет не дольше ttl его кэша.
+ */
+@Slf4j
+@Component
+public class EventCacheInvalidator {
+
+    private final DiscoveryClient discoveryClient;
+    private final RestClient restClient;
+    private final boolean enabled;
+    private final List<String> services;
+
+    public EventCacheInvalidator(
+            DiscoveryClient discoveryClient,
+            @Value("${ru.practicum.explorewithme.cache.events.invalidation.enabled:false}") boolean enabled,
+            @Value("${ru.practicum.explorewithme.cache.events.invalidation.services:request-service}")
+            List<String> services,
+            @Value("${ru.practicum.explorewithme.cache.events.invalidation.timeoutMs:1000}") int timeoutMs
+    ) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        this.discoveryClient = discoveryClient;
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+        this.enabled = enabled;
+        this.services = services;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventUpdated(EventUpdated updated) {
+        if (!enabled) {
+            return;
+        }
+        for (String service : services) {
+            for (ServiceInstance instance : discoveryClient.getInstances(service)) {
+                try {
+                    restClient.delete()
+                            .uri(instance.getUri() + EventCacheApi.URL + "/{eventId}", updated.eventId())
+                            .retrieve()
+                            .toBodilessEntity();
+                } catch (RuntimeException e) {
+                    log.warn("Не удалось сбросить событие {} в кэше {} ({}): {}",
+                            updated.eventId(), service, instance.getUri(), e.getMessage());
+                }
+            }
+        }
+    }
+}
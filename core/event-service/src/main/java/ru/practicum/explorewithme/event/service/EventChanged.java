@@ -0,0 +1,7 @@
+package ru.practicum.explorewithme.event.service;
+
+/**
+ * Изменились данные события, попадающие в его DTO (поля события или число подтверждённых заявок).
+ */
+public record EventChanged(Long eventId) {
+}
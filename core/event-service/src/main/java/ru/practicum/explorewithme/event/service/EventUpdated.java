@@ -0,0 +1,7 @@
+package ru.practicum.explorewithme.event.service;
+
+/**
+ * Изменены поля события (в отличие от {@link EventChanged}, не публикуется при изменении числа подтверждённых заявок).
+ */
+public record EventUpdated(Long eventId) {
+}
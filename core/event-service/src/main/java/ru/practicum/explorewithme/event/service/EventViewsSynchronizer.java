@@ -0,0 +1,114 @@
+package ru.practicum.explorewithme.event.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.StatsQuery;
+import ru.practicum.StatsView;
+import ru.practicum.client.StatsClient;
+import ru.practicum.explorewithme.event.dao.EventViewsRepository;
+import ru.practicum.explorewithme.shared.util.EventServiceUtil;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Периодически переносит просмотры событий из сервиса статистики в колонку events.views,
+ * чтобы GET /events?sort=VIEWS сортировался по индексу в БД. Порядок по популярности отстаёт
+ * от сервиса статистики не больше чем на интервал синхронизации.
+ * <p>
+ * Переносятся только события, у которых с прошлого переноса были хиты: их список берётся из статистики
+ * за окно [synced_until - lookback, now), а просмотры за всё время запрашиваются порциями по batchSize.
+ * Перенос выполняет один экземпляр - тот, кто взял аренду в event_views_sync; остальные пропускают запуск.
+ * lookback покрывает хиты, доставленные клиентом статистики с задержкой (пакеты, файл недоставленных).
+ */
+@Slf4j
+@Component
+public class EventViewsSynchronizer {
+
+    private static final Pattern EVENT_URI = Pattern.compile("/events/(\\d+)");
+
+    private final EventViewsRepository eventViewsRepository;
+    private final StatsClient statsClient;
+    private final int batchSize;
+    private final long lookbackMs;
+    private final long leaseMs;
+
+    public EventViewsSynchronizer(
+            EventViewsRepository eventViewsRepository,
+            StatsClient statsClient,
+            @Value("${ru.practicum.explorewithme.views.sync.batchSize:500}") int batchSize,
+            @Value("${ru.practicum.explorewithme.views.sync.lookbackMs:300000}") long lookbackMs,
+            @Value("${ru.practicum.explorewithme.views.sync.leaseMs:300000}") long leaseMs
+    ) {
+        this.eventViewsRepository = eventViewsRepository;
+        this.statsClient = statsClient;
+        this.batchSize = batchSize;
+        this.lookbackMs = lookbackMs;
+        this.leaseMs = leaseMs;
+    }
+
+    @Scheduled(fixedDelayString = "${ru.practicum.explorewithme.views.sync.intervalMs:60000}",
+            initialDelayString = "${ru.practicum.explorewithme.views.sync.initialDelayMs:10000}")
+    public void sync() {
+        Optional<LocalDateTime> syncedUntil;
+        try {
+            syncedUntil = eventViewsRepository.tryAcquireSync(leaseMs);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось взять аренду синхронизации просмотров: {}", e.getMessage());
+            return;
+        }
+        if (syncedUntil.isEmpty()) {
+            log.debug("Просмотры синхронизирует другой экземпляр");
+            return;
+        }
+
+        LocalDateTime until = LocalDateTime.now();
+        LocalDateTime from = syncedUntil.get().minusNanos(lookbackMs * 1_000_000);
+        int synced = 0;
+        LocalDateTime completed = null;
+        try {
+            List<Long> ids = new ArrayList<>(findHitEventIds(from, until));
+            for (int start = 0; start < ids.size(); start += batchSize) {
+                Set<Long> batch = new HashSet<>(ids.subList(start, Math.min(start + batchSize, ids.size())));
+                Map<Long, Long> stats = EventServiceUtil.getStatsViewsMap(statsClient, batch);
+                Map<Long, Long> views = new HashMap<>();
+                batch.forEach(id -> views.put(id, stats.getOrDefault(id, 0L)));
+                eventViewsRepository.updateViews(views);
+                synced += batch.size();
+            }
+            completed = until;
+            log.debug("Просмотры синхронизированы для {} событий с хитами после {}", synced, from);
+        } catch (RuntimeException e) {
+            log.warn("Синхронизация просмотров прервана после {} событий: {}", synced, e.getMessage());
+        } finally {
+            // При ошибке окно не сдвигается: следующий запуск повторит его целиком
+            eventViewsRepository.releaseSync(completed);
+        }
+    }
+
+    private Set<Long> findHitEventIds(LocalDateTime from, LocalDateTime until) {
+        StatsQuery query = StatsQuery.builder()
+                .start(from)
+                .end(until)
+                .unique(false)
+                .build();
+        Set<Long> ids = new HashSet<>();
+        for (StatsView view : statsClient.query(query)) {
+            Matcher matcher = EVENT_URI.matcher(view.getUri());
+            if (matcher.matches()) {
+                ids.add(Long.parseLong(matcher.group(1)));
+            }
+        }
+        return ids;
+    }
+}
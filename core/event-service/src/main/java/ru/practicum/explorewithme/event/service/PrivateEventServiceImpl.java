@@ -2,21 +2,19 @@ package ru.practicum.explorewithme.event.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.client.StatsClient;
 import ru.practicum.explorewithme.api.category.dto.ResponseCategoryDto;
 import ru.practicum.explorewithme.api.event.dto.EventFullDto;
 import ru.practicum.explorewithme.api.event.dto.EventShortDto;
 import ru.practicum.explorewithme.api.event.enums.EventState;
 import ru.practicum.explorewithme.api.request.enums.RequestStatus;
 import ru.practicum.explorewithme.api.user.dto.UserShortDto;
-import ru.practicum.explorewithme.category.dao.CategoryRepository;
-import ru.practicum.explorewithme.category.mapper.CategoryMapper;
 import ru.practicum.explorewithme.event.client.request.RequestClient;
-import ru.practicum.explorewithme.event.client.user.UserClient;
+import ru.practicum.explorewithme.api.user.cache.UserCache;
 import ru.practicum.explorewithme.event.dao.EventRepository;
 import ru.practicum.explorewithme.event.dto.NewEventDto;
 import ru.practicum.explorewithme.event.dto.UpdateEventRequest;
@@ -26,12 +24,12 @@ import ru.practicum.explorewithme.event.model.Event;
 import ru.practicum.explorewithme.shared.error.exception.BadRequestException;
 import ru.practicum.explorewithme.shared.error.exception.NotFoundException;
 import ru.practicum.explorewithme.shared.error.exception.RuleViolationException;
-import ru.practicum.explorewithme.shared.util.CategoryServiceUtil;
-import ru.practicum.explorewithme.shared.util.EventServiceUtil;
+import ru.practicum.explorewithme.shared.cache.CategoryCache;
+import ru.practicum.explorewithme.shared.cache.ViewsCache;
+import ru.practicum.explorewithme.shared.enrichment.EventEnrichmentService;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -40,15 +38,17 @@ import java.util.stream.Collectors;
 public class PrivateEventServiceImpl implements PrivateEventService {
 
     private final EventRepository eventRepository;
-    private final CategoryRepository categoryRepository;
+    private final CategoryCache categoryCache;
 
-    private final UserClient userClient;
+    private final UserCache userCache;
     private final RequestClient requestClient;
-    private final StatsClient statsClient;
+    private final ViewsCache viewsCache;
+    private final EventEnrichmentService eventEnrichmentService;
+
+    private final ApplicationEventPublisher eventPublisher;
 
     private final EventMapper eventMapper;
     private final UserMapper userMapper;
-    private final CategoryMapper categoryMapper;
 
     @Override
     public EventFullDto create(Long userId, NewEventDto newEventDto) {
@@ -58,10 +58,9 @@ public class PrivateEventServiceImpl implements PrivateEventService {
             throw new BadRequestException("Дата и время на которые намечено событие не может быть раньше, чем через два часа от текущего момента");
         }
 
-        UserShortDto userShortDto = userMapper.toUserShortDto(userClient.getUserById(userId));
+        UserShortDto userShortDto = userMapper.toUserShortDto(userCache.getUserById(userId));
 
-        ResponseCategoryDto categoryDto = CategoryServiceUtil
-                .getResponseCategoryDto(categoryRepository, categoryMapper, newEventDto.getCategory());
+        ResponseCategoryDto categoryDto = categoryCache.get(newEventDto.getCategory());
 
         Event newEvent = eventMapper.toEvent(newEventDto, userShortDto.getId(), categoryDto.getId());
 
@@ -76,7 +75,7 @@ public class PrivateEventServiceImpl implements PrivateEventService {
     public EventFullDto update(Long userId, Long eventId, UpdateEventRequest updateEventRequest) {
         log.info("Обновление события с ID {} пользователем с ID {}: {}", eventId, userId, updateEventRequest);
 
-        UserShortDto userShortDto = userMapper.toUserShortDto(userClient.getUserById(userId));
+        UserShortDto userShortDto = userMapper.toUserShortDto(userCache.getUserById(userId));
 
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new NotFoundException("Событие с ID " + eventId + " не найдено"));
@@ -86,11 +85,12 @@ public class PrivateEventServiceImpl implements PrivateEventService {
         eventMapper.updateEvent(event, updateEventRequest);
 
         eventRepository.save(event);
+        eventPublisher.publishEvent(new EventChanged(eventId));
+        eventPublisher.publishEvent(new EventUpdated(eventId));
 
         Long categoryId = updateEventRequest.getCategory() != null ? updateEventRequest.getCategory() : event.getCategoryId();
 
-        ResponseCategoryDto categoryDto = CategoryServiceUtil
-                .getResponseCategoryDto(categoryRepository, categoryMapper, categoryId);
+        ResponseCategoryDto categoryDto = categoryCache.get(categoryId);
 
         Long confirmedRequests = requestClient.getRequestsCountsByStatusAndEventIds(RequestStatus.CONFIRMED, Set.of(eventId)).getOrDefault(eventId, 0L);
 
@@ -98,7 +98,7 @@ public class PrivateEventServiceImpl implements PrivateEventService {
             return eventMapper.toEventFullDto(event, categoryDto, userShortDto, confirmedRequests, 0L);
         }
 
-        Long views = EventServiceUtil.getStatsViews(statsClient, event, true);
+        Long views = viewsCache.getViews(event, true);
 
         log.info("Событие с ID {} обновлено пользователем с ID {}.", eventId, userId);
 
@@ -110,7 +110,7 @@ public class PrivateEventServiceImpl implements PrivateEventService {
     public EventFullDto getById(Long userId, Long eventId) {
         log.info("Получение события с ID {} пользователем с ID {}.", eventId, userId);
 
-        UserShortDto userShortDto = userMapper.toUserShortDto(userClient.getUserById(userId));
+        UserShortDto userShortDto = userMapper.toUserShortDto(userCache.getUserById(userId));
 
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new NotFoundException("Событие с ID " + eventId + " не найдено"));
@@ -122,14 +122,13 @@ public class PrivateEventServiceImpl implements PrivateEventService {
 
         Long confirmedRequests = requestClient.getRequestsCountsByStatusAndEventIds(RequestStatus.CONFIRMED, Set.of(eventId)).getOrDefault(eventId, 0L);
 
-        ResponseCategoryDto categoryDto = CategoryServiceUtil
-                .getResponseCategoryDto(categoryRepository, categoryMapper, event.getCategoryId());
+        ResponseCategoryDto categoryDto = categoryCache.get(event.getCategoryId());
 
         if (event.getPublishedOn() == null) {
             return eventMapper.toEventFullDto(event, categoryDto, userShortDto, confirmedRequests, 0L);
         }
 
-        Long views = EventServiceUtil.getStatsViews(statsClient, event, true);
+        Long views = viewsCache.getViews(event, true);
 
         return eventMapper.toEventFullDto(event, categoryDto, userShortDto, confirmedRequests, views);
     }
@@ -139,7 +138,7 @@ public class PrivateEventServiceImpl implements PrivateEventService {
     public List<EventShortDto> getAll(Long userId, int from, int size) {
         log.info("Получение всех событий пользователя с ID: {}, from: {}, size: {}.", userId, from, size);
 
-        UserShortDto userShortDto = userMapper.toUserShortDto(userClient.getUserById(userId));
+        UserShortDto userShortDto = userMapper.toUserShortDto(userCache.getUserById(userId));
 
         if (userShortDto == null) {
             throw new NotFoundException("Пользователь c ID " + userId + " не найден");
@@ -148,29 +147,8 @@ public class PrivateEventServiceImpl implements PrivateEventService {
         Pageable pageable = PageRequest.of(from / size, size);
         List<Event> events = eventRepository.findByInitiatorIdOrderByEventDateDesc(userId, pageable).stream().toList();
 
-        Set<Long> eventIds = events
-                .stream().map(Event::getId)
-                .collect(Collectors.toSet());
-
-        Map<Long, Long> confirmedRequests = requestClient.getRequestsCountsByStatusAndEventIds(RequestStatus.CONFIRMED, eventIds);
-
-        Set<Long> categoriesIds = events.stream()
-                .map(Event::getCategoryId)
-                .collect(Collectors.toSet());
-
-        Map<Long, Long> views = EventServiceUtil.getStatsViewsMap(statsClient, eventIds);
-
-        Map<Long, ResponseCategoryDto> categoryDtos = CategoryServiceUtil
-                .getResponseCategoryDtoMap(categoryRepository, categoryMapper, categoriesIds);
-
-        return EventServiceUtil.getEventShortDtos(
-                Collections.singletonMap(userId, userShortDto),
-                categoryDtos,
-                events,
-                confirmedRequests,
-                views,
-                eventMapper
-        );
+        return eventEnrichmentService.toShortDtos(events, EventEnrichmentService.ALL_SOURCES,
+                Collections.singletonMap(userId, userShortDto));
     }
 
     private static void validateCriticalRules(Event event, Long userId, UpdateEventRequest updateEventRequest) {
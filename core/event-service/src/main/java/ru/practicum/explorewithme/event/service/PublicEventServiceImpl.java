@@ -8,6 +8,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.StatsDto;
 import ru.practicum.StatsUtil;
@@ -16,26 +17,24 @@ import ru.practicum.explorewithme.api.category.dto.ResponseCategoryDto;
 import ru.practicum.explorewithme.api.event.dto.EventFullDto;
 import ru.practicum.explorewithme.api.event.dto.EventShortDto;
 import ru.practicum.explorewithme.api.event.enums.EventState;
-import ru.practicum.explorewithme.api.request.enums.RequestStatus;
 import ru.practicum.explorewithme.api.user.dto.UserShortDto;
-import ru.practicum.explorewithme.category.dao.CategoryRepository;
-import ru.practicum.explorewithme.category.mapper.CategoryMapper;
-import ru.practicum.explorewithme.event.client.request.RequestClient;
-import ru.practicum.explorewithme.event.client.user.UserClient;
+import ru.practicum.explorewithme.api.user.cache.UserCache;
 import ru.practicum.explorewithme.event.dao.EventRepository;
 import ru.practicum.explorewithme.event.dao.EventSpecifications;
 import ru.practicum.explorewithme.event.dto.EventParams;
+import ru.practicum.explorewithme.event.enums.EventsSort;
 import ru.practicum.explorewithme.event.mapper.EventMapper;
 import ru.practicum.explorewithme.event.mapper.UserMapper;
 import ru.practicum.explorewithme.event.model.Event;
 import ru.practicum.explorewithme.shared.error.exception.BadRequestException;
 import ru.practicum.explorewithme.shared.error.exception.NotFoundException;
-import ru.practicum.explorewithme.shared.util.CategoryServiceUtil;
-import ru.practicum.explorewithme.shared.util.EventServiceUtil;
+import ru.practicum.explorewithme.shared.cache.CategoryCache;
+import ru.practicum.explorewithme.shared.cache.SingleFlight;
+import ru.practicum.explorewithme.shared.cache.ViewsCache;
+import ru.practicum.explorewithme.shared.enrichment.EventEnrichmentService;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -43,21 +42,30 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class PublicEventServiceImpl implements PublicEventService {
 
+    // Подтверждённые заявки в публичном списке и карточке события берутся из events.confirmed_requests
+    private static final Set<EventEnrichmentService.Source> LISTING_SOURCES = EnumSet.of(
+            EventEnrichmentService.Source.VIEWS, EventEnrichmentService.Source.USERS, EventEnrichmentService.Source.CATEGORIES);
+
     private final EventRepository eventRepository;
-    private final CategoryRepository categoryRepository;
+    private final CategoryCache categoryCache;
 
-    private final UserClient userClient;
-    private final RequestClient requestClient;
+    private final UserCache userCache;
     private final StatsClient statsClient;
+    private final ViewsCache viewsCache;
+    private final EventEnrichmentService eventEnrichmentService;
 
     private final EventMapper eventMapper;
     private final UserMapper userMapper;
-    private final CategoryMapper categoryMapper;
+
+    // Одновременные одинаковые запросы разделяют одно вычисление, хиты статистики пишутся для каждого запроса
+    private final SingleFlight<Long, EventFullDto> eventFlights = new SingleFlight<>();
+    private final SingleFlight<ListingKey, List<EventShortDto>> listingFlights = new SingleFlight<>();
 
     @Value("${ru.practicum.explorewithme.appNameForStats}")
     private String appName;
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<EventShortDto> getAllByParams(EventParams params, HttpServletRequest request) {
         log.info("Получение событий с параметрами: {}", params.toString());
 
@@ -66,71 +74,67 @@ public class PublicEventServiceImpl implements PublicEventService {
             throw new BadRequestException("Дата начала должна быть раньше даты окончания");
         }
 
-        if (params.getRangeStart() == null) params.setRangeStart(LocalDateTime.now());
-
-        List<Event> events = eventRepository
-                .findAll(EventSpecifications.publicSpecification(params), makePageable(params))
-                .stream()
-                .toList();
-
-        Set<Long> eventIds = events.stream().map(Event::getId).collect(Collectors.toSet());
-
-        Map<Long, Long> confirmedRequests = requestClient.getRequestsCountsByStatusAndEventIds(RequestStatus.CONFIRMED, eventIds);
-
-        if (params.getOnlyAvailable()) {
-            events = events.stream()
-                    .filter(event -> event.getParticipantLimit() > confirmedRequests.get(event.getId()))
-                    .toList();
-        }
+        List<EventShortDto> events = listingFlights.execute(ListingKey.of(params), () -> findAllByParams(params));
 
         if (events.isEmpty()) {
-            log.warn("Нет свободных событий по указанным параметрам {}", params);
+            log.warn("Нет событий по указанным параметрам {}", params);
             return Collections.emptyList();
         }
 
         buildStatsDtoAndHit(request);
 
-        Map<Long, Long> views = EventServiceUtil.getStatsViewsMap(statsClient, eventIds);
+        return events;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EventFullDto getById(Long eventId, HttpServletRequest request) {
+        log.debug("Получение события с ID = {}", eventId);
 
-        Set<Long> userIds = events.stream()
-                .map(Event::getInitiatorId)
-                .collect(Collectors.toSet());
-        Set<Long> categoriesIds = new HashSet<>(params.getCategories());
+        EventFullDto dto = eventFlights.execute(eventId, () -> findPublishedById(eventId));
 
-        Map<Long, UserShortDto> userShortDtos = EventServiceUtil.getUserShortDtoMap(userClient, userIds, userMapper);
+        StatsDto statsDto = buildStatsDtoAndHit(request);
+        viewsCache.onHit(eventId, statsDto.getIp());
 
-        Map<Long, ResponseCategoryDto> categoryDtos = CategoryServiceUtil.getResponseCategoryDtoMap(categoryRepository, categoryMapper, categoriesIds);
+        log.debug("Получено событие с ID={}: {}", eventId, dto);
 
-        return EventServiceUtil.getEventShortDtos(userShortDtos, categoryDtos, events, confirmedRequests, views, eventMapper);
+        return dto;
     }
 
-    @Override
-    public EventFullDto getById(Long eventId, HttpServletRequest request) {
-        log.debug("Получение события с ID = {}", eventId);
+    private List<EventShortDto> findAllByParams(EventParams params) {
+        EventParams query = params.getRangeStart() == null
+                ? params.toBuilder().rangeStart(LocalDateTime.now()).build()
+                : params;
+
+        List<Event> events = eventRepository
+                .findAll(EventSpecifications.publicSpecification(query), makePageable(query))
+                .stream()
+                .toList();
+
+        if (events.isEmpty()) {
+            return Collections.emptyList();
+        }
 
+        return eventEnrichmentService.toShortDtos(events, LISTING_SOURCES);
+    }
+
+    private EventFullDto findPublishedById(Long eventId) {
         Event event = eventRepository.findByIdAndState(eventId, EventState.PUBLISHED)
                 .orElseThrow(() -> new NotFoundException("Событие не найдено."));
 
-        Long confirmedRequests = requestClient.getRequestsCountsByStatusAndEventIds(RequestStatus.CONFIRMED, Set.of(eventId)).getOrDefault(eventId, 0L);
+        Long confirmedRequests = event.getConfirmedRequests();
 
-        buildStatsDtoAndHit(request);
+        ResponseCategoryDto categoryDto = categoryCache.get(event.getCategoryId());
 
-        ResponseCategoryDto categoryDto = CategoryServiceUtil
-                .getResponseCategoryDto(categoryRepository, categoryMapper, event.getCategoryId());
-
-        UserShortDto userShortDto = userMapper.toUserShortDto(userClient.getUserById(event.getInitiatorId()));
+        UserShortDto userShortDto = userMapper.toUserShortDto(userCache.getUserById(event.getInitiatorId()));
 
         if (event.getPublishedOn() == null) {
             return eventMapper.toEventFullDto(event, categoryDto, userShortDto, confirmedRequests, 0L);
         }
 
-        Long views = EventServiceUtil.getStatsViews(statsClient, event, true);
-
-        EventFullDto dto = eventMapper.toEventFullDto(event, categoryDto, userShortDto, confirmedRequests, views);
+        Long views = viewsCache.getViews(event, true);
 
-        log.debug("Получено событие с ID={}: {}", eventId, dto);
-
-        return dto;
+        return eventMapper.toEventFullDto(event, categoryDto, userShortDto, confirmedRequests, views);
     }
 
     @Override
@@ -146,18 +150,17 @@ public class PublicEventServiceImpl implements PublicEventService {
                     .orElseThrow(() -> new NotFoundException("Событие c ID = " + eventId + " не найдено"));
         }
 
-        Long confirmedRequests = requestClient.getRequestsCountsByStatusAndEventIds(RequestStatus.CONFIRMED, Set.of(eventId)).getOrDefault(eventId, 0L);
+        Long confirmedRequests = event.getConfirmedRequests();
 
-        ResponseCategoryDto categoryDto = CategoryServiceUtil
-                .getResponseCategoryDto(categoryRepository, categoryMapper, event.getCategoryId());
+        ResponseCategoryDto categoryDto = categoryCache.get(event.getCategoryId());
 
-        UserShortDto userDto = userMapper.toUserShortDto(userClient.getUserById(event.getInitiatorId()));
+        UserShortDto userDto = userMapper.toUserShortDto(userCache.getUserById(event.getInitiatorId()));
 
         if (event.getPublishedOn() == null) {
             return eventMapper.toEventFullDto(event, categoryDto, userDto, confirmedRequests, 0L);
         }
 
-        Long views = EventServiceUtil.getStatsViews(statsClient, event, true);
+        Long views = viewsCache.getViews(event, true);
 
         EventFullDto dto = eventMapper.toEventFullDto(event, categoryDto, userDto, confirmedRequests, views);
 
@@ -177,27 +180,7 @@ public class PublicEventServiceImpl implements PublicEventService {
             return Collections.emptyList();
         }
 
-        Set<Long> dbEventIds = events.stream()
-                .map(Event::getId)
-                .collect(Collectors.toSet());
-
-        Map<Long, Long> confirmedRequests = requestClient.getRequestsCountsByStatusAndEventIds(RequestStatus.CONFIRMED, dbEventIds);
-
-        Map<Long, Long> views = EventServiceUtil.getStatsViewsMap(statsClient, dbEventIds);
-
-        Set<Long> userIds = events.stream()
-                .map(Event::getInitiatorId)
-                .collect(Collectors.toSet());
-        Set<Long> categoryIds = events.stream()
-                .map(Event::getInitiatorId)
-                .collect(Collectors.toSet());
-
-        Map<Long, UserShortDto> userShortDtos = EventServiceUtil.getUserShortDtoMap(userClient, userIds, userMapper);
-
-        Map<Long, ResponseCategoryDto> categoryDtos = CategoryServiceUtil
-                .getResponseCategoryDtoMap(categoryRepository, categoryMapper, categoryIds);
-
-        return EventServiceUtil.getEventShortDtos(userShortDtos, categoryDtos, events, confirmedRequests, views, eventMapper);
+        return eventEnrichmentService.toShortDtos(events, EventEnrichmentService.ALL_SOURCES);
     }
 
     private Pageable makePageable(EventParams params) {
@@ -205,7 +188,7 @@ public class PublicEventServiceImpl implements PublicEventService {
         return PageRequest.of(params.getFrom() / params.getSize(), params.getSize(), sort);
     }
 
-    private void buildStatsDtoAndHit(HttpServletRequest request) {
+    private StatsDto buildStatsDtoAndHit(HttpServletRequest request) {
         String ip = StatsUtil.getIpAddressOrDefault(request.getRemoteAddr());
 
         log.debug("Получен IP-адрес: {}", ip);
@@ -220,6 +203,21 @@ public class PublicEventServiceImpl implements PublicEventService {
         log.debug("Сохранение статистики = {}", statsDto);
         statsClient.hit(statsDto);
         log.info("Статистика сохранена.");
+        return statsDto;
     }
 
-}
\ No newline at end of file
+    /**
+     * Неизменяемый ключ объединения запросов списка: EventParams изменяем, и его изменение после
+     * putIfAbsent сломало бы поиск и удаление ключа в SingleFlight.
+     */
+    private record ListingKey(String text, List<Long> categories, Boolean paid, LocalDateTime rangeStart,
+                              LocalDateTime rangeEnd, Boolean onlyAvailable, EventsSort eventsSort, int from, int size) {
+
+        static ListingKey of(EventParams params) {
+            List<Long> categories = params.getCategories() == null ? null : List.copyOf(params.getCategories());
+            return new ListingKey(params.getText(), categories, params.getPaid(), params.getRangeStart(),
+                    params.getRangeEnd(), params.getOnlyAvailable(), params.getEventsSort(), params.getFrom(),
+                    params.getSize());
+        }
+    }
+}
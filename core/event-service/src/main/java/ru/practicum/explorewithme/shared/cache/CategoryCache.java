@@ -0,0 +1,89 @@
+package ru.practicum.explorewithme.shared.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.explorewithme.api.category.dto.ResponseCategoryDto;
+import ru.practicum.explorewithme.category.dao.CategoryRepository;
+import ru.practicum.explorewithme.category.mapper.CategoryMapper;
+import ru.practicum.explorewithme.shared.error.exception.NotFoundException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Снимок справочника категорий в памяти. Загружается при старте и целиком перечитывается после фиксации
+ * изменений категорий в этом экземпляре; изменения из других экземпляров подхватываются периодическим
+ * перечитыванием или при промахе.
+ * <p>
+ * Снимок неизменяемый и подменяется целиком, поэтому чтение идёт без блокировок и без обращений к БД.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryCache {
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryMapper categoryMapper;
+
+    private volatile Map<Long, ResponseCategoryDto> snapshot = Map.of();
+
+    public ResponseCategoryDto get(Long categoryId) {
+        ResponseCategoryDto category = snapshot.get(categoryId);
+        if (category != null) {
+            return category;
+        }
+        // Категория могла появиться в другом экземпляре после последнего перечитывания
+        ResponseCategoryDto loaded = categoryRepository.findById(categoryId)
+                .map(categoryMapper::toCategoryDto)
+                .orElseThrow(() -> new NotFoundException("Category with id=" + categoryId + " was not found"));
+        reload();
+        return loaded;
+    }
+
+    public Map<Long, ResponseCategoryDto> getAll(Set<Long> categoryIds) {
+        Map<Long, ResponseCategoryDto> current = snapshot;
+        Map<Long, ResponseCategoryDto> categories = new HashMap<>(categoryIds.size() * 2);
+        for (Long categoryId : categoryIds) {
+            ResponseCategoryDto category = current.get(categoryId);
+            if (category != null) {
+                categories.put(categoryId, category);
+            }
+        }
+        if (categories.size() < categoryIds.size()) {
+            reload();
+            current = snapshot;
+            for (Long categoryId : categoryIds) {
+                categories.computeIfAbsent(categoryId, current::get);
+            }
+        }
+        return categories;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoriesChanged(CategoriesChanged changed) {
+        reload();
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${ru.practicum.explorewithme.cache.categories.refreshMs:60000}",
+            initialDelayString = "${ru.practicum.explorewithme.cache.categories.refreshMs:60000}")
+    public void reload() {
+        snapshot = categoryRepository.findAll().stream()
+                .map(categoryMapper::toCategoryDto)
+                .collect(Collectors.toUnmodifiableMap(ResponseCategoryDto::getId, Function.identity()));
+        log.debug("Справочник категорий перечитан: {} категорий", snapshot.size());
+    }
+
+    /**
+     * Категории созданы, изменены или удалены.
+     */
+    public record CategoriesChanged() {
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.explorewithme.shared.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.explorewithme.api.http.ResourceVersions;
+import ru.practicum.explorewithme.compilation.service.CompilationChanged;
+import ru.practicum.explorewithme.event.service.EventChanged;
+
+import java.time.Duration;
+
+/**
+ * Версии данных публичных эндпоинтов для ETag. Событие зависит от своей версии и версии категорий,
+ * списки событий - от версии всех событий, подборки - ещё и от версии подборок.
+ * Просмотры в версию не входят и обновляются по истечении срока жизни версий.
+ */
+@Component
+public class PublicResponseVersions {
+
+    private static final String EVENTS = "events";
+    private static final String CATEGORIES = "categories";
+    private static final String COMPILATIONS = "compilations";
+
+    private final ResourceVersions versions;
+
+    public PublicResponseVersions(
+            MeterRegistry meterRegistry,
+            @Value("${ru.practicum.explorewithme.http.versions.maxSize:10000}") long maxSize,
+            @Value("${ru.practicum.explorewithme.http.versions.maxAgeSeconds:60}") long maxAgeSeconds
+    ) {
+        this.versions = new ResourceVersions(maxSize, Duration.ofSeconds(maxAgeSeconds));
+        CaffeineCacheMetrics.monitor(meterRegistry, versions.getCache(), "responseVersions");
+    }
+
+    public String eventETag(Long eventId) {
+        return versions.etag(eventKey(eventId), CATEGORIES);
+    }
+
+    public String eventsETag() {
+        return versions.etag(EVENTS, CATEGORIES);
+    }
+
+    public String categoriesETag() {
+        return versions.etag(CATEGORIES);
+    }
+
+    public String compilationsETag() {
+        return versions.etag(COMPILATIONS, EVENTS, CATEGORIES);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChanged changed) {
+        versions.bump(eventKey(changed.eventId()));
+        versions.bump(EVENTS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCompilationChanged(CompilationChanged changed) {
+        versions.bump(COMPILATIONS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoriesChanged(CategoryCache.CategoriesChanged changed) {
+        versions.bump(CATEGORIES);
+    }
+
+    private static String eventKey(Long eventId) {
+        return "event:" + eventId;
+    }
+}
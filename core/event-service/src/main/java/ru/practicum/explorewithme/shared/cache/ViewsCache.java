@@ -0,0 +1,165 @@
+package ru.practicum.explorewithme.shared.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.client.StatsClient;
+import ru.practicum.explorewithme.event.model.Event;
+import ru.practicum.explorewithme.shared.util.EventServiceUtil;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Кэш просмотров событий из сервиса статистики по ключу (id события, unique).
+ * Промахи по списку событий догружаются одним запросом, записи живут не дольше ttl. Одновременные промахи
+ * по тому же ключу (или тому же набору событий) объединяются {@link SingleFlight} в один запрос к статистике.
+ * <p>
+ * Хиты, записанные этим экземпляром, сразу увеличивают закэшированное значение: неуникальные - всегда,
+ * уникальные - при первом хите IP с момента загрузки записи. Повторный визит IP, уже учтённого
+ * сервисом статистики до загрузки, может завысить значение до следующей загрузки.
+ * <p>
+ * При недоступности сервиса статистики возвращается 0, ошибка не кэшируется.
+ */
+@Slf4j
+@Component
+public class ViewsCache {
+
+    private final StatsClient statsClient;
+    private final Cache<ViewsKey, CachedViews> cache;
+    private final int maxLocalIps;
+    private final SingleFlight<ViewsKey, Long> viewsFlights = new SingleFlight<>();
+    private final SingleFlight<Set<Long>, Map<Long, Long>> viewsMapFlights = new SingleFlight<>();
+
+    private final Timer loadTimer;
+    private final Counter loadErrors;
+
+    public ViewsCache(
+            StatsClient statsClient,
+            MeterRegistry meterRegistry,
+            @Value("${ru.practicum.explorewithme.cache.views.maxSize:10000}") long maxSize,
+            @Value("${ru.practicum.explorewithme.cache.views.ttlSeconds:30}") long ttlSeconds,
+            @Value("${ru.practicum.explorewithme.cache.views.maxLocalIps:1024}") int maxLocalIps
+    ) {
+        this.statsClient = statsClient;
+        this.maxLocalIps = maxLocalIps;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "eventViews");
+        this.loadTimer = Timer.builder("event.views.load")
+                .description("Время загрузки просмотров из сервиса статистики")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.loadErrors = Counter.builder("event.views.load.errors")
+                .description("Ошибки загрузки просмотров из сервиса статистики")
+                .register(meterRegistry);
+    }
+
+    public Long getViews(Event event, boolean unique) {
+        ViewsKey key = new ViewsKey(event.getId(), unique);
+        CachedViews cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.get();
+        }
+        try {
+            return viewsFlights.execute(key, () -> {
+                // Запись могла появиться, пока этот вызов шёл от промаха до объединения
+                CachedViews loaded = cache.getIfPresent(key);
+                if (loaded != null) {
+                    return loaded.get();
+                }
+                Long views = loadTimer.record(() -> EventServiceUtil.getStatsViews(statsClient, event, unique));
+                return cache.asMap().computeIfAbsent(key, k -> new CachedViews(views, unique)).get();
+            });
+        } catch (RuntimeException e) {
+            loadErrors.increment();
+            log.warn("Не удалось получить просмотры события {}: {}", event.getId(), e.getMessage());
+            return 0L;
+        }
+    }
+
+    public Map<Long, Long> getViewsMap(Set<Long> eventIds) {
+        Map<Long, Long> views = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long eventId : eventIds) {
+            CachedViews cached = cache.getIfPresent(new ViewsKey(eventId, false));
+            if (cached != null) {
+                views.put(eventId, cached.get());
+            } else {
+                missing.add(eventId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return views;
+        }
+
+        try {
+            Map<Long, Long> loaded = viewsMapFlights.execute(Set.copyOf(missing),
+                    () -> loadTimer.record(() -> EventServiceUtil.getStatsViewsMap(statsClient, missing)));
+            for (Long eventId : missing) {
+                Long value = loaded.getOrDefault(eventId, 0L);
+                views.put(eventId, cache.asMap()
+                        .computeIfAbsent(new ViewsKey(eventId, false), k -> new CachedViews(value, false))
+                        .get());
+            }
+        } catch (RuntimeException e) {
+            loadErrors.increment();
+            log.warn("Не удалось получить просмотры событий {}: {}", missing, e.getMessage());
+            missing.forEach(eventId -> views.put(eventId, 0L));
+        }
+        return views;
+    }
+
+    /**
+     * Учитывает хит по странице события, записанный этим экземпляром.
+     */
+    public void onHit(Long eventId, String ip) {
+        CachedViews all = cache.getIfPresent(new ViewsKey(eventId, false));
+        if (all != null) {
+            all.increment(ip);
+        }
+        CachedViews unique = cache.getIfPresent(new ViewsKey(eventId, true));
+        if (unique != null) {
+            unique.increment(ip);
+        }
+    }
+
+    private record ViewsKey(Long eventId, boolean unique) {
+    }
+
+    private final class CachedViews {
+        private long views;
+        // IP, учтённые локально с момента загрузки; null для неуникальных просмотров
+        private final Set<String> localIps;
+
+        private CachedViews(long views, boolean unique) {
+            this.views = views;
+            this.localIps = unique ? new HashSet<>() : null;
+        }
+
+        synchronized long get() {
+            return views;
+        }
+
+        synchronized void increment(String ip) {
+            if (localIps == null) {
+                views++;
+            } else if (localIps.size() < maxLocalIps && localIps.add(ip)) {
+                views++;
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.explorewithme.shared.enrichment;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Источник данных для обогащения событий: по набору id возвращает значения для найденных id.
+ * Реализации можно оборачивать кэшами, не меняя {@link EventEnrichmentService}.
+ */
+@FunctionalInterface
+public interface EnrichmentSource<V> {
+
+    Map<Long, V> load(Set<Long> ids);
+
+}
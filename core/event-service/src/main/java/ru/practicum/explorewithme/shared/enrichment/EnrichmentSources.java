@@ -0,0 +1,42 @@
+package ru.practicum.explorewithme.shared.enrichment;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.explorewithme.api.category.dto.ResponseCategoryDto;
+import ru.practicum.explorewithme.api.request.enums.RequestStatus;
+import ru.practicum.explorewithme.api.user.dto.UserShortDto;
+import ru.practicum.explorewithme.event.client.request.RequestClient;
+import ru.practicum.explorewithme.api.user.cache.UserCache;
+import ru.practicum.explorewithme.event.mapper.UserMapper;
+import ru.practicum.explorewithme.shared.cache.CategoryCache;
+import ru.practicum.explorewithme.shared.cache.ViewsCache;
+import ru.practicum.explorewithme.shared.util.EventServiceUtil;
+
+@Configuration
+public class EnrichmentSources {
+
+    public static final String CONFIRMED_REQUESTS = "confirmedRequestsSource";
+    public static final String VIEWS = "viewsSource";
+    public static final String USERS = "usersSource";
+    public static final String CATEGORIES = "categoriesSource";
+
+    @Bean(CONFIRMED_REQUESTS)
+    public EnrichmentSource<Long> confirmedRequestsSource(RequestClient requestClient) {
+        return eventIds -> requestClient.getRequestsCountsByStatusAndEventIds(RequestStatus.CONFIRMED, eventIds);
+    }
+
+    @Bean(VIEWS)
+    public EnrichmentSource<Long> viewsSource(ViewsCache viewsCache) {
+        return viewsCache::getViewsMap;
+    }
+
+    @Bean(USERS)
+    public EnrichmentSource<UserShortDto> usersSource(UserCache userCache, UserMapper userMapper) {
+        return userIds -> EventServiceUtil.getUserShortDtoMap(userCache, userIds, userMapper);
+    }
+
+    @Bean(CATEGORIES)
+    public EnrichmentSource<ResponseCategoryDto> categoriesSource(CategoryCache categoryCache) {
+        return categoryCache::getAll;
+    }
+}
@@ -0,0 +1,201 @@
+package ru.practicum.explorewithme.shared.enrichment;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.explorewithme.api.category.dto.ResponseCategoryDto;
+import ru.practicum.explorewithme.api.event.dto.EventFullDto;
+import ru.practicum.explorewithme.api.event.dto.EventShortDto;
+import ru.practicum.explorewithme.api.user.dto.UserShortDto;
+import ru.practicum.explorewithme.event.mapper.EventMapper;
+import ru.practicum.explorewithme.event.model.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Превращает страницу событий в DTO: собирает id событий, инициаторов и категорий за один проход,
+ * параллельно загружает каждый источник один раз на вызов и собирает DTO.
+ * <p>
+ * Источники ({@link EnrichmentSources}) загружаются в виртуальных потоках, у каждого свой таймаут.
+ * При ошибке или таймауте источник заменяется значением по умолчанию, остальные источники не страдают:
+ * заявки и просмотры - нули, инициаторы и категории - null в DTO. Таймаут здесь лишь прекращает ожидание:
+ * сами вызовы ограничены таймаутами клиентов (чтения Feign, запроса к статистике), которые настроены не больше
+ * таймаутов источников, поэтому зависший вызов не продолжает занимать соединение после ответа.
+ * <p>
+ * Счётчики DTO хранятся в массивах long по позиции события на странице. Источники по-прежнему отдают
+ * {@code Map<Long, Long>}: так их возвращают Feign и JSON сервиса статистики, и упаковка остаётся на этой границе -
+ * по одной мапе на источник за вызов, а не на событие.
+ */
+@Slf4j
+@Service
+public class EventEnrichmentService {
+
+    public enum Source {
+        // Без этого источника используется счётчик events.confirmed_requests
+        CONFIRMED_REQUESTS,
+        VIEWS,
+        USERS,
+        CATEGORIES
+    }
+
+    public static final Set<Source> ALL_SOURCES = Collections.unmodifiableSet(EnumSet.allOf(Source.class));
+
+    private final EnrichmentSource<Long> confirmedRequestsSource;
+    private final EnrichmentSource<Long> viewsSource;
+    private final EnrichmentSource<UserShortDto> usersSource;
+    private final EnrichmentSource<ResponseCategoryDto> categoriesSource;
+    private final EventMapper eventMapper;
+
+    private final long requestsTimeoutMs;
+    private final long viewsTimeoutMs;
+    private final long usersTimeoutMs;
+    private final long categoriesTimeoutMs;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public EventEnrichmentService(
+            @Qualifier(EnrichmentSources.CONFIRMED_REQUESTS) EnrichmentSource<Long> confirmedRequestsSource,
+            @Qualifier(EnrichmentSources.VIEWS) EnrichmentSource<Long> viewsSource,
+            @Qualifier(EnrichmentSources.USERS) EnrichmentSource<UserShortDto> usersSource,
+            @Qualifier(EnrichmentSources.CATEGORIES) EnrichmentSource<ResponseCategoryDto> categoriesSource,
+            EventMapper eventMapper,
+            @Value("${ru.practicum.explorewithme.enrichment.timeoutMs.requests:2000}") long requestsTimeoutMs,
+            @Value("${ru.practicum.explorewithme.enrichment.timeoutMs.views:2000}") long viewsTimeoutMs,
+            @Value("${ru.practicum.explorewithme.enrichment.timeoutMs.users:2000}") long usersTimeoutMs,
+            @Value("${ru.practicum.explorewithme.enrichment.timeoutMs.categories:1000}") long categoriesTimeoutMs
+    ) {
+        this.confirmedRequestsSource = confirmedRequestsSource;
+        this.viewsSource = viewsSource;
+        this.usersSource = usersSource;
+        this.categoriesSource = categoriesSource;
+        this.eventMapper = eventMapper;
+        this.requestsTimeoutMs = requestsTimeoutMs;
+        this.viewsTimeoutMs = viewsTimeoutMs;
+        this.usersTimeoutMs = usersTimeoutMs;
+        this.categoriesTimeoutMs = categoriesTimeoutMs;
+    }
+
+    public List<EventShortDto> toShortDtos(List<Event> events, Set<Source> sources) {
+        return toShortDtos(events, sources, Map.of());
+    }
+
+    /**
+     * @param knownUsers инициаторы, уже загруженные в этом запросе; повторно они не запрашиваются
+     */
+    public List<EventShortDto> toShortDtos(List<Event> events, Set<Source> sources, Map<Long, UserShortDto> knownUsers) {
+        Enriched enriched = enrich(events, sources, knownUsers);
+        List<EventShortDto> dtos = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            dtos.add(eventMapper.toEventShortDto(event,
+                    enriched.categories.get(event.getCategoryId()),
+                    enriched.users.get(event.getInitiatorId()),
+                    enriched.confirmedRequests[i],
+                    enriched.views[i]));
+        }
+        return dtos;
+    }
+
+    public List<EventFullDto> toFullDtos(List<Event> events, Set<Source> sources) {
+        Enriched enriched = enrich(events, sources, Map.of());
+        List<EventFullDto> dtos = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            dtos.add(eventMapper.toEventFullDto(event,
+                    enriched.categories.get(event.getCategoryId()),
+                    enriched.users.get(event.getInitiatorId()),
+                    enriched.confirmedRequests[i],
+                    enriched.views[i]));
+        }
+        return dtos;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Enriched enrich(List<Event> events, Set<Source> sources, Map<Long, UserShortDto> knownUsers) {
+        int size = events.size();
+        Set<Long> eventIds = new HashSet<>(size * 2);
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        for (Event event : events) {
+            eventIds.add(event.getId());
+            if (!knownUsers.containsKey(event.getInitiatorId())) {
+                userIds.add(event.getInitiatorId());
+            }
+            categoryIds.add(event.getCategoryId());
+        }
+
+        CompletableFuture<Map<Long, Long>> confirmedRequests =
+                load(sources, Source.CONFIRMED_REQUESTS, confirmedRequestsSource, eventIds, requestsTimeoutMs);
+        CompletableFuture<Map<Long, Long>> views = load(sources, Source.VIEWS, viewsSource, eventIds, viewsTimeoutMs);
+        CompletableFuture<Map<Long, UserShortDto>> users = load(sources, Source.USERS, usersSource, userIds, usersTimeoutMs);
+        CompletableFuture<Map<Long, ResponseCategoryDto>> categories =
+                load(sources, Source.CATEGORIES, categoriesSource, categoryIds, categoriesTimeoutMs);
+
+        Map<Long, UserShortDto> usersMap = users.join();
+        if (!knownUsers.isEmpty()) {
+            usersMap = new HashMap<>(usersMap);
+            usersMap.putAll(knownUsers);
+        }
+
+        Enriched enriched = new Enriched(size, usersMap, categories.join());
+        Map<Long, Long> confirmedRequestsMap = confirmedRequests.join();
+        Map<Long, Long> viewsMap = views.join();
+        boolean storedConfirmedRequests = !sources.contains(Source.CONFIRMED_REQUESTS);
+        for (int i = 0; i < size; i++) {
+            Event event = events.get(i);
+            enriched.confirmedRequests[i] = storedConfirmedRequests
+                    ? event.getConfirmedRequests()
+                    : valueOrZero(confirmedRequestsMap.get(event.getId()));
+            enriched.views[i] = valueOrZero(viewsMap.get(event.getId()));
+        }
+        return enriched;
+    }
+
+    private <V> CompletableFuture<Map<Long, V>> load(Set<Source> sources, Source source, EnrichmentSource<V> loader,
+                                                      Set<Long> ids, long timeoutMs) {
+        if (!sources.contains(source) || ids.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        return CompletableFuture.supplyAsync(() -> loader.load(ids), executor)
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    log.warn("Источник {} не ответил, используется значение по умолчанию: {}", source, e.toString());
+                    return Map.of();
+                });
+    }
+
+    private static long valueOrZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static final class Enriched {
+        private final long[] confirmedRequests;
+        private final long[] views;
+        private final Map<Long, UserShortDto> users;
+        private final Map<Long, ResponseCategoryDto> categories;
+
+        private Enriched(int size, Map<Long, UserShortDto> users, Map<Long, ResponseCategoryDto> categories) {
+            this.confirmedRequests = new long[size];
+            this.views = new long[size];
+            this.users = users;
+            this.categories = categories;
+        }
+    }
+}
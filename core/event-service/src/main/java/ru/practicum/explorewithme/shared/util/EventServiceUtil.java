@@ -2,21 +2,17 @@ package ru.practicum.explorewithme.shared.util;
 
 import lombok.experimental.UtilityClass;
 import ru.practicum.StatsParams;
+import ru.practicum.StatsQuery;
 import ru.practicum.StatsUtil;
 import ru.practicum.StatsView;
 import ru.practicum.client.StatsClient;
-import ru.practicum.explorewithme.api.category.dto.ResponseCategoryDto;
-import ru.practicum.explorewithme.api.event.dto.EventFullDto;
-import ru.practicum.explorewithme.api.event.dto.EventShortDto;
 import ru.practicum.explorewithme.api.user.dto.UserDto;
 import ru.practicum.explorewithme.api.user.dto.UserShortDto;
-import ru.practicum.explorewithme.event.client.user.UserClient;
-import ru.practicum.explorewithme.event.mapper.EventMapper;
+import ru.practicum.explorewithme.api.user.cache.UserCache;
 import ru.practicum.explorewithme.event.mapper.UserMapper;
 import ru.practicum.explorewithme.event.model.Event;
 
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -26,7 +22,7 @@ public class EventServiceUtil {
 
     public static StatsParams getStatsParams(Event event, boolean unique) {
         return StatsUtil.buildStatsParams(
-                Collections.singletonList("/events/" + event.getId()),
+                Collections.singletonList(StatsUtil.EVENT_URI_PREFIX + event.getId()),
                 unique,
                 event.getPublishedOn()
         );
@@ -41,61 +37,14 @@ public class EventServiceUtil {
     }
 
     public static Map<Long, Long> getStatsViewsMap(StatsClient statsClient, Set<Long> eventIds) {
-        StatsParams statsParams = StatsUtil.buildStatsParams(
-                eventIds.stream()
-                        .map(id -> "/events/" + id)
-                        .toList(),
-                false
-        );
+        StatsQuery statsQuery = StatsUtil.buildEventsStatsQuery(eventIds, false);
 
-        return StatsUtil.getViewsMap(statsClient.getStats(statsParams));
+        return StatsUtil.getViewsMap(statsClient.query(statsQuery));
     }
 
-    public static Map<Long, UserShortDto> getUserShortDtoMap(UserClient userClient, Set<Long> userIds, UserMapper userMapper) {
-        return userClient.getAllByIds(userIds).stream()
+    public static Map<Long, UserShortDto> getUserShortDtoMap(UserCache userCache, Set<Long> userIds, UserMapper userMapper) {
+        return userCache.getAllByIds(userIds).stream()
                 .collect(Collectors.toMap(UserDto::getId, userMapper::toUserShortDto));
     }
 
-    public static List<EventFullDto> getEventFullDtos(
-            Map<Long, UserShortDto> userShortDtos,
-            Map<Long, ResponseCategoryDto> categoryDtos,
-            List<Event> events,
-            Map<Long, Long> confirmedRequests,
-            Map<Long, Long> views,
-            EventMapper eventMapper
-    ) {
-        return events.stream()
-                .map(event ->
-                        eventMapper.toEventFullDto(
-                                event,
-                                categoryDtos.get(event.getCategoryId()),
-                                userShortDtos.get(event.getInitiatorId()),
-                                confirmedRequests.get(event.getId()),
-                                views.get(event.getId())
-                        )
-                )
-                .toList();
-    }
-
-    public static List<EventShortDto> getEventShortDtos(
-            Map<Long, UserShortDto> userShortDtos,
-            Map<Long, ResponseCategoryDto> categoryDtos,
-            List<Event> events,
-            Map<Long, Long> confirmedRequests,
-            Map<Long, Long> views,
-            EventMapper eventMapper
-    ) {
-        return events.stream()
-                .map(event ->
-                        eventMapper.toEventShortDto(
-                                event,
-                                categoryDtos.get(event.getCategoryId()),
-                                userShortDtos.get(event.getInitiatorId()),
-                                confirmedRequests.get(event.getId()),
-                                views.get(event.getId())
-                        )
-                )
-                .toList();
-    }
-
 }
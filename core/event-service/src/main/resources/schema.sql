@@ -1,3 +1,6 @@
+-- Триграммы для поиска GET /events?text= (lower(...) LIKE '%...%') и сортировки по релевантности
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 CREATE TABLE IF NOT EXISTS categories (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     name VARCHAR(50) NOT NULL UNIQUE
@@ -18,9 +21,29 @@ CREATE TABLE IF NOT EXISTS events (
     title VARCHAR(120) NOT NULL,
     published_on TIMESTAMP WITHOUT TIME ZONE,
     location_lat DOUBLE PRECISION NOT NULL,
-    location_lon DOUBLE PRECISION NOT NULL
+    location_lon DOUBLE PRECISION NOT NULL,
+    views BIGINT NOT NULL DEFAULT 0,
+    confirmed_requests BIGINT NOT NULL DEFAULT 0,
+    confirmed_requests_version BIGINT NOT NULL DEFAULT 0
 );
 
+ALTER TABLE events ADD COLUMN IF NOT EXISTS views BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS confirmed_requests BIGINT NOT NULL DEFAULT 0;
+-- Версия значения confirmed_requests из request-service: более старые значения не применяются
+ALTER TABLE events ADD COLUMN IF NOT EXISTS confirmed_requests_version BIGINT NOT NULL DEFAULT 0;
+
+-- Состояние переноса просмотров в events.views (EventViewsSynchronizer): synced_until - до какого момента
+-- хиты учтены, locked_until - аренда экземпляра, выполняющего перенос
+CREATE TABLE IF NOT EXISTS event_views_sync (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    synced_until TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    locked_until TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+INSERT INTO event_views_sync (id, synced_until, locked_until)
+VALUES (1, '1970-01-01 00:00:00', '1970-01-01 00:00:00+00')
+ON CONFLICT (id) DO NOTHING;
+
 CREATE TABLE IF NOT EXISTS compilations (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     pinned BOOLEAN NOT NULL DEFAULT FALSE,
@@ -37,7 +60,16 @@ CREATE TABLE IF NOT EXISTS compilations_events (
 DROP INDEX IF EXISTS idx_events_category;
 DROP INDEX IF EXISTS idx_events_initiator;
 DROP INDEX IF EXISTS idx_events_date;
+DROP INDEX IF EXISTS idx_events_state_views;
+DROP INDEX IF EXISTS idx_events_state_date_available;
 
 CREATE INDEX idx_events_category ON events(category_id);
 CREATE INDEX idx_events_initiator ON events(initiator_id);
 CREATE INDEX idx_events_date ON events(event_date);
+-- Публичный список с sort=VIEWS: опубликованные события в порядке (views DESC, id), как в EventsSort.VIEWS
+CREATE INDEX idx_events_state_views ON events(state, views DESC, id);
+-- Публичный список: условие onlyAvailable проверяется по записям индекса, без чтения строк занятых событий
+CREATE INDEX idx_events_state_date_available ON events(state, event_date, participant_limit, confirmed_requests);
+-- Триграммные индексы не пересоздаются при каждом запуске: построение на большой таблице занимает минуты
+CREATE INDEX IF NOT EXISTS idx_events_annotation_trgm ON events USING GIN (lower(annotation) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_events_description_trgm ON events USING GIN (lower(description) gin_trgm_ops);
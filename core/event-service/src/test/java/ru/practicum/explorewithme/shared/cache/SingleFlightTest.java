@@ -0,0 +1,133 @@
+package ru.practicum.explorewithme.shared.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final List<Thread> callers = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_shouldRunLoaderOnce_whenCallsWithSameKeyOverlap() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<Integer>> results = callConcurrently("key", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return 42;
+        });
+        waitUntilAllCallersBlocked();
+        release.countDown();
+
+        for (Future<Integer> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void execute_shouldPropagateLeaderExceptionToAllWaiters() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("stats-server недоступен");
+
+        List<Future<Integer>> results = callConcurrently("key", () -> {
+            loads.incrementAndGet();
+            await(release);
+            throw failure;
+        });
+        waitUntilAllCallersBlocked();
+        release.countDown();
+
+        for (Future<Integer> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void execute_shouldLoadAgain_afterPreviousCallCompleted() {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("key", loads::incrementAndGet);
+        int second = singleFlight.execute("key", loads::incrementAndGet);
+
+        assertThat(second).isEqualTo(2);
+    }
+
+    @Test
+    void execute_shouldLoadAgain_afterPreviousCallFailed() {
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException();
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(singleFlight.execute("key", () -> 1)).isEqualTo(1);
+    }
+
+    @Test
+    void execute_shouldNotCoalesceDifferentKeys() {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("first", () -> singleFlight.execute("second", loads::incrementAndGet));
+
+        assertThat(loads).hasValue(1);
+    }
+
+    private List<Future<Integer>> callConcurrently(String key, Supplier<Integer> loader) {
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> {
+                callers.add(Thread.currentThread());
+                return singleFlight.execute(key, loader);
+            }));
+        }
+        return results;
+    }
+
+    // Ведущий держит вычисление, пока остальные вызовы не заблокируются в ожидании его результата
+    private void waitUntilAllCallersBlocked() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!allCallersBlocked()) {
+            assertThat(System.nanoTime()).as("вызовы не дождались ведущего").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private boolean allCallersBlocked() {
+        return callers.size() == CALLERS && callers.stream()
+                .map(Thread::getState)
+                .allMatch(state -> state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
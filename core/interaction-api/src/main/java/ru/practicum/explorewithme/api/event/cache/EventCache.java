@@ -0,0 +1,70 @@
+package ru.practicum.explorewithme.api.event.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ru.practicum.explorewithme.api.event.dto.EventFullDto;
+import ru.practicum.explorewithme.api.event.service.EventServiceApi;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ближний кэш событий перед клиентом {@link EventServiceApi} для проверок, которым нужны поля самого события
+ * (инициатор, состояние, лимит участников, модерация). Число подтверждённых заявок и просмотры в нём устаревают,
+ * поэтому брать их отсюда нельзя.
+ * <p>
+ * Ошибки и отсутствующие события не кэшируются. После изменения события event-service сбрасывает запись
+ * через {@link #evict(Long)}, ttl ограничивает устаревание, если сброс не дошёл. Загрузка, начатая до сброса,
+ * в кэш не попадает: иначе она вернула бы в него прочитанное до изменения событие.
+ */
+public class EventCache {
+
+    private final EventServiceApi eventClient;
+    private final Cache<Long, EventFullDto> cache;
+    // Число сбросов; загрузка кладёт результат в кэш, только если за время загрузки сбросов не было
+    private final AtomicLong evictions = new AtomicLong();
+
+    public EventCache(EventServiceApi eventClient, long maxSize, Duration ttl) {
+        this.eventClient = eventClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public EventFullDto getById(Long eventId) {
+        EventFullDto cached = cache.getIfPresent(eventId);
+        if (cached != null) {
+            return cached;
+        }
+        long evictionsBeforeLoad = evictions.get();
+        EventFullDto loaded = eventClient.getByIdAndState(eventId, null);
+        cache.asMap().compute(eventId, (id, current) ->
+                current == null && evictions.get() == evictionsBeforeLoad ? loaded : current);
+        return loaded;
+    }
+
+    /**
+     * Событие в обход кэша; прочитанное значение заменяет запись в кэше.
+     */
+    public EventFullDto getFresh(Long eventId) {
+        long evictionsBeforeLoad = evictions.get();
+        EventFullDto loaded = eventClient.getByIdAndState(eventId, null);
+        cache.asMap().compute(eventId, (id, current) ->
+                evictions.get() == evictionsBeforeLoad ? loaded : current);
+        return loaded;
+    }
+
+    // Сброс и проверка перед записью загруженного выполняются под блокировкой ключа и не перемежаются
+    public void evict(Long eventId) {
+        cache.asMap().compute(eventId, (id, current) -> {
+            evictions.incrementAndGet();
+            return null;
+        });
+    }
+
+    public Cache<Long, EventFullDto> getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.explorewithme.api.event.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.*;
+
+/**
+ * Число подтверждённых заявок события. version растёт при каждом изменении счётчика в request-service:
+ * event-service применяет значение, только если его версия новее сохранённой.
+ */
+@Getter
+@Setter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfirmedRequestsDto {
+    @NotNull
+    @Positive
+    private Long eventId;
+    @PositiveOrZero
+    private long count;
+    @PositiveOrZero
+    private long version;
+}
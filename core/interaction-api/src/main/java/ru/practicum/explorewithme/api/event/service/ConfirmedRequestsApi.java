@@ -0,0 +1,21 @@
+package ru.practicum.explorewithme.api.event.service;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import ru.practicum.explorewithme.api.event.dto.ConfirmedRequestsDto;
+
+import java.util.List;
+
+/**
+ * Передача в event-service чисел подтверждённых заявок из request-service. Значения с версией не новее
+ * сохранённой игнорируются, поэтому повторная и переупорядоченная доставка безопасны.
+ */
+public interface ConfirmedRequestsApi {
+    String URL = "/api/v1/internal/events/confirmed-requests";
+
+    @PutMapping(path = URL, consumes = MediaType.APPLICATION_JSON_VALUE)
+    void updateConfirmedRequests(@NotNull @RequestBody List<@Valid ConfirmedRequestsDto> counts);
+}
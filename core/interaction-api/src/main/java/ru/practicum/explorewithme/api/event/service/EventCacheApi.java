@@ -0,0 +1,15 @@
+package ru.practicum.explorewithme.api.event.service;
+
+import jakarta.validation.constraints.Positive;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+/**
+ * Сброс записей кэша событий; event-service вызывает его у каждого экземпляра сервисов-потребителей.
+ */
+public interface EventCacheApi {
+    String URL = "/api/v1/internal/cache/events";
+
+    @DeleteMapping(path = URL + "/{eventId}")
+    void evictEvent(@Positive @PathVariable Long eventId);
+}
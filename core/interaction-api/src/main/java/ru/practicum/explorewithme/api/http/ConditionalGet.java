@@ -0,0 +1,17 @@
+package ru.practicum.explorewithme.api.http;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * GET-эндпоинт отвечает с ETag и Cache-Control по правилу с этим именем и возвращает 304 Not Modified,
+ * если If-None-Match совпадает с текущим ETag. См. {@link ConditionalGetInterceptor}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalGet {
+
+    String value();
+}
@@ -0,0 +1,74 @@
+package ru.practicum.explorewithme.api.http;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Enumeration;
+import java.util.Map;
+
+/**
+ * Условный GET для методов с {@link ConditionalGet}. ETag считается по правилу до вызова контроллера:
+ * при совпадении с If-None-Match сразу отдаётся 304 без обращения к БД, клиентам и статистике.
+ * Иначе правило сохраняется в атрибуте запроса, и {@link ConditionalGetResponseAdvice} добавит заголовки
+ * к успешному ответу.
+ */
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    static final String ETAG_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".etag";
+    static final String RULE_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".rule";
+
+    private final Map<String, ConditionalGetRule> rules;
+
+    public ConditionalGetInterceptor(Map<String, ConditionalGetRule> rules) {
+        this.rules = Map.copyOf(rules);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        ConditionalGet conditionalGet = handlerMethod.getMethodAnnotation(ConditionalGet.class);
+        if (conditionalGet == null) {
+            return true;
+        }
+        ConditionalGetRule rule = rules.get(conditionalGet.value());
+        if (rule == null) {
+            throw new IllegalStateException("Не задано правило условного GET: " + conditionalGet.value());
+        }
+        String etag = rule.etag().apply(request);
+        if (etag == null) {
+            return true;
+        }
+
+        if (matches(request.getHeaders(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, rule.cacheControl().getHeaderValue());
+            return false;
+        }
+        request.setAttribute(ETAG_ATTRIBUTE, etag);
+        request.setAttribute(RULE_ATTRIBUTE, rule);
+        return true;
+    }
+
+    // If-None-Match сравнивается слабым сравнением: W/ у тега клиента игнорируется
+    private static boolean matches(Enumeration<String> ifNoneMatch, String etag) {
+        while (ifNoneMatch.hasMoreElements()) {
+            for (String tag : ifNoneMatch.nextElement().split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.explorewithme.api.http;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Добавляет ETag и Cache-Control, посчитанные {@link ConditionalGetInterceptor}, к успешным ответам.
+ * Ответы с ошибками уходят без них, чтобы ошибка не закэшировалась.
+ * Регистрируется бином в конфигурации сервиса.
+ */
+@ControllerAdvice
+public class ConditionalGetResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)
+                || !(response instanceof ServletServerHttpResponse servletResponse)) {
+            return body;
+        }
+        Object etag = servletRequest.getServletRequest().getAttribute(ConditionalGetInterceptor.ETAG_ATTRIBUTE);
+        Object rule = servletRequest.getServletRequest().getAttribute(ConditionalGetInterceptor.RULE_ATTRIBUTE);
+        int status = servletResponse.getServletResponse().getStatus();
+        if (etag != null && rule instanceof ConditionalGetRule conditionalGetRule && status >= 200 && status < 300) {
+            response.getHeaders().setETag((String) etag);
+            response.getHeaders().setCacheControl(conditionalGetRule.cacheControl());
+        }
+        return body;
+    }
+}
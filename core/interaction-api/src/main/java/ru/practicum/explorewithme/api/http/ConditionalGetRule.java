@@ -0,0 +1,59 @@
+package ru.practicum.explorewithme.api.http;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Правило условного GET: как посчитать ETag по запросу и какой Cache-Control отдать.
+ * ETag считается до вызова контроллера, поэтому должен зависеть только от версий в памяти.
+ * Если etag вернул null, запрос обрабатывается без условного GET.
+ */
+public record ConditionalGetRule(Function<HttpServletRequest, String> etag, CacheControl cacheControl) {
+
+    /**
+     * Cache-Control с max-age в секундах; при 0 клиент обязан перепроверять ответ при каждом запросе.
+     */
+    public static ConditionalGetRule of(Function<HttpServletRequest, String> etag, long maxAgeSeconds) {
+        return of(etag, maxAgeSeconds, 0);
+    }
+
+    /**
+     * То же с s-maxage для общих кэшей (кэш gateway): при max-age 0 клиенты перепроверяют ответ,
+     * а общий кэш отдаёт его без обращения к сервису в течение sharedMaxAgeSeconds.
+     */
+    public static ConditionalGetRule of(Function<HttpServletRequest, String> etag, long maxAgeSeconds,
+                                        long sharedMaxAgeSeconds) {
+        CacheControl cacheControl;
+        if (maxAgeSeconds > 0 || sharedMaxAgeSeconds > 0) {
+            cacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS);
+        } else {
+            cacheControl = CacheControl.noCache();
+        }
+        if (sharedMaxAgeSeconds > 0) {
+            cacheControl = cacheControl.sMaxAge(sharedMaxAgeSeconds, TimeUnit.SECONDS);
+        }
+        return new ConditionalGetRule(etag, cacheControl.cachePublic());
+    }
+
+    /**
+     * Id из переменной пути; null, если переменной нет или она не число.
+     */
+    @SuppressWarnings("unchecked")
+    public static Long pathId(HttpServletRequest request, String name) {
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(
+                HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null || variables.get(name) == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(variables.get(name));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
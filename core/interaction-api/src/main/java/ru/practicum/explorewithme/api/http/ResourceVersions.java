@@ -0,0 +1,55 @@
+package ru.practicum.explorewithme.api.http;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версии ресурсов для ETag. Версия - токен, который выдаётся при первом обращении к ключу и меняется после
+ * {@link #bump(Object)}; сбрасывать версию нужно после коммита изменения.
+ * <p>
+ * Версии хранятся в памяти экземпляра и живут не дольше maxAge: так ограничено устаревание данных, которые
+ * не отслеживаются событиями (просмотры, изменения на других экземплярах). Отсчёт токенов начинается
+ * со случайного значения, поэтому ETag другого экземпляра или до перезапуска не совпадёт с текущим.
+ */
+public class ResourceVersions {
+
+    private final AtomicLong sequence = new AtomicLong(ThreadLocalRandom.current().nextLong());
+    private final Cache<Object, Long> versions;
+
+    public ResourceVersions(long maxSize, Duration maxAge) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(maxAge)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * ETag из текущих версий ключей. Вызывать до чтения данных ответа: изменение, закоммиченное
+     * во время чтения, сменит версию, и следующий запрос получит новый ответ.
+     */
+    public String etag(Object... keys) {
+        StringJoiner etag = new StringJoiner("-", "\"", "\"");
+        for (Object key : keys) {
+            etag.add(Long.toHexString(versions.get(key, k -> sequence.incrementAndGet())));
+        }
+        return etag.toString();
+    }
+
+    public void bump(Object key) {
+        versions.invalidate(key);
+    }
+
+    public void bumpAll() {
+        versions.invalidateAll();
+    }
+
+    public Cache<Object, Long> getCache() {
+        return versions;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.explorewithme.api.user.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ru.practicum.explorewithme.api.user.dto.UserDto;
+import ru.practicum.explorewithme.api.user.service.UserServiceApi;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ближний кэш пользователей перед клиентом {@link UserServiceApi}. Размер ограничен, записи живут не дольше ttl.
+ * <p>
+ * Пакетная загрузка запрашивает только отсутствующих в кэше пользователей и кладёт каждого отдельной записью,
+ * поэтому следующие одиночные запросы обслуживаются из кэша. Ошибки и отсутствующие пользователи не кэшируются.
+ * При удалении пользователя user-service сбрасывает запись через {@link #evict(Long)}, ttl ограничивает
+ * устаревание, если сброс не дошёл.
+ */
+public class UserCache {
+
+    private final UserServiceApi userClient;
+    private final Cache<Long, UserDto> cache;
+
+    public UserCache(UserServiceApi userClient, long maxSize, Duration ttl) {
+        this.userClient = userClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public UserDto getUserById(Long userId) {
+        return cache.get(userId, userClient::getUserById);
+    }
+
+    public List<UserDto> getAllByIds(Set<Long> userIds) {
+        Map<Long, UserDto> cached = cache.getAllPresent(userIds);
+        List<UserDto> users = new ArrayList<>(cached.values());
+        if (cached.size() == userIds.size()) {
+            return users;
+        }
+
+        Set<Long> missing = new HashSet<>(userIds);
+        missing.removeAll(cached.keySet());
+        for (UserDto user : userClient.getAllByIds(missing)) {
+            cache.put(user.getId(), user);
+            users.add(user);
+        }
+        return users;
+    }
+
+    public void evict(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    public Cache<Long, UserDto> getCache() {
+        return cache;
+    }
+}
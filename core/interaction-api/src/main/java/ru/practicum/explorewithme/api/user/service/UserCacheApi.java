@@ -0,0 +1,15 @@
+package ru.practicum.explorewithme.api.user.service;
+
+import jakarta.validation.constraints.Positive;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+/**
+ * Сброс записей кэша пользователей; user-service вызывает его у каждого экземпляра сервисов-потребителей.
+ */
+public interface UserCacheApi {
+    String URL = "/api/v1/internal/cache/users";
+
+    @DeleteMapping(path = URL + "/{userId}")
+    void evictUser(@Positive @PathVariable Long userId);
+}
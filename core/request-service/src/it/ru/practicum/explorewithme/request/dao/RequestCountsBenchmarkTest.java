@@ -0,0 +1,159 @@
+package ru.practicum.explorewithme.request.dao;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.explorewithme.api.request.enums.RequestStatus;
+import ru.practicum.explorewithme.api.user.cache.UserCache;
+import ru.practicum.explorewithme.request.client.event.EventClient;
+import ru.practicum.explorewithme.request.service.RequestCountsReconciler;
+
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение чтения числа подтверждённых заявок из счётчиков request_counts с прежней агрегацией
+ * COUNT(*) ... GROUP BY по таблице заявок. В лог пишутся средняя задержка и перцентили для проверки
+ * лимита (одно событие), страницы списка (20 событий) и подборки или выгрузки (200 событий).
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.config.location=classpath:application-test.yml"
+})
+@ActiveProfiles("test")
+@Testcontainers
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class RequestCountsBenchmarkTest {
+
+    private static final int EVENTS = 2_000;
+    private static final int REQUESTS_PER_EVENT = 500;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 2_000;
+
+    // Запрос, который заменили счётчики (RequestRepository.getRequestsCountsByStatusAndEventIds)
+    private static final String AGGREGATE_SQL = "SELECT event_id, COUNT(*) FROM requests " +
+            "WHERE event_id = ANY (?) AND status = ? GROUP BY event_id";
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16.1");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    private final RequestCountRepository requestCountRepository;
+
+    private final RequestCountsReconciler requestCountsReconciler;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private EventClient eventClient;
+
+    @MockBean
+    private UserCache userCache;
+
+    @BeforeAll
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE requests, request_counts");
+        // Треть заявок подтверждена, остальные ожидают, отклонены или отменены
+        jdbcTemplate.update("INSERT INTO requests (event_id, requester_id, status) " +
+                        "SELECT e, r, (ARRAY['CONFIRMED', 'PENDING', 'REJECTED', 'CONFIRMED', 'CANCELED', 'CONFIRMED'])[r % 6 + 1] " +
+                        "FROM generate_series(1, ?) e, generate_series(1, ?) r",
+                EVENTS, REQUESTS_PER_EVENT);
+        jdbcTemplate.execute("ANALYZE requests");
+
+        long start = System.nanoTime();
+        requestCountsReconciler.reconcile();
+        log.info("заполнение счётчиков для {} заявок: {} мс", (long) EVENTS * REQUESTS_PER_EVENT,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        jdbcTemplate.execute("ANALYZE request_counts");
+    }
+
+    @Test
+    void confirmedCounts_oneEvent() {
+        compare(1);
+    }
+
+    @Test
+    void confirmedCounts_listingPage() {
+        compare(20);
+    }
+
+    @Test
+    void confirmedCounts_compilationOrExport() {
+        compare(200);
+    }
+
+    private void compare(int eventsPerCall) {
+        List<Long> sample = randomEventIds(eventsPerCall);
+        assertThat(requestCountRepository.find(RequestStatus.CONFIRMED, sample)).isEqualTo(aggregate(sample));
+
+        measure("агрегация по заявкам", eventsPerCall, this::aggregate);
+        measure("счётчики", eventsPerCall, eventIds -> requestCountRepository.find(RequestStatus.CONFIRMED, eventIds));
+    }
+
+    private void measure(String name, int eventsPerCall, Function<List<Long>, Map<Long, Long>> lookup) {
+        for (int i = 0; i < WARMUP; i++) {
+            lookup.apply(randomEventIds(eventsPerCall));
+        }
+        long[] latencies = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            List<Long> eventIds = randomEventIds(eventsPerCall);
+            long start = System.nanoTime();
+            lookup.apply(eventIds);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        log.info("{}, событий в запросе {}: среднее {} мкс, p50 {} мкс, p99 {} мкс", name, eventsPerCall,
+                TimeUnit.NANOSECONDS.toMicros((long) Arrays.stream(latencies).average().orElse(0)),
+                TimeUnit.NANOSECONDS.toMicros(latencies[ITERATIONS / 2]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[ITERATIONS * 99 / 100]));
+    }
+
+    private Map<Long, Long> aggregate(List<Long> eventIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(AGGREGATE_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", eventIds.toArray()));
+            ps.setString(2, RequestStatus.CONFIRMED.name());
+            return ps;
+        }, rs -> {
+            counts.put(rs.getLong(1), rs.getLong(2));
+        });
+        return counts;
+    }
+
+    private static List<Long> randomEventIds(int size) {
+        return LongStream.generate(() -> ThreadLocalRandom.current().nextLong(1, EVENTS + 1))
+                .distinct()
+                .limit(size)
+                .boxed()
+                .toList();
+    }
+}
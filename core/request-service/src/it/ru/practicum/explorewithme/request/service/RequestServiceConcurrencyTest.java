@@ -0,0 +1,291 @@
+package ru.practicum.explorewithme.request.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.explorewithme.api.event.cache.EventCache;
+import ru.practicum.explorewithme.api.event.dto.EventFullDto;
+import ru.practicum.explorewithme.api.event.enums.EventState;
+import ru.practicum.explorewithme.api.request.dto.RequestDto;
+import ru.practicum.explorewithme.api.user.cache.UserCache;
+import ru.practicum.explorewithme.api.user.dto.UserDto;
+import ru.practicum.explorewithme.api.user.dto.UserShortDto;
+import ru.practicum.explorewithme.request.client.event.EventClient;
+import ru.practicum.explorewithme.request.dto.RequestStatusUpdate;
+import ru.practicum.explorewithme.request.error.exception.RuleViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Лимит участников под нагрузкой: тысячи параллельных заявок и подтверждений на одно событие
+ * не должны превышать лимит. Проверки выполняет PostgreSQL, поэтому тест идёт на нём, а не на H2.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.config.location=classpath:application-test.yml"
+})
+@ActiveProfiles("test")
+@Testcontainers
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class RequestServiceConcurrencyTest {
+
+    private static final long EVENT_ID = 1L;
+    private static final long INITIATOR_ID = 1_000_000L;
+    private static final int THREADS = 64;
+    private static final int REQUESTS = 2_000;
+    private static final int LIMIT = 100;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16.1");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    private final RequestService requestService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EventCache eventCache;
+
+    private final RequestCountsReconciler requestCountsReconciler;
+
+    @MockBean
+    private EventClient eventClient;
+
+    @MockBean
+    private UserCache userCache;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE requests, request_counts");
+        eventCache.evict(EVENT_ID);
+        executor = Executors.newFixedThreadPool(THREADS);
+        when(userCache.getUserById(anyLong())).thenAnswer(invocation ->
+                UserDto.builder().id(invocation.getArgument(0)).name("user").email("user@mail.ru").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void createRequest_shouldNotExceedLimit_whenRequestsAreConfirmedOnCreation() throws Exception {
+        mockEvent(false);
+
+        AtomicInteger rejected = new AtomicInteger();
+        List<Callable<Void>> joins = new ArrayList<>();
+        for (long userId = 1; userId <= REQUESTS; userId++) {
+            long requester = userId;
+            joins.add(() -> {
+                try {
+                    requestService.createRequest(requester, EVENT_ID);
+                } catch (RuleViolationException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        runConcurrently("создание заявок", joins);
+
+        assertThat(countRequests("CONFIRMED")).isEqualTo(LIMIT);
+        assertThat(countRequests(null)).isEqualTo(LIMIT);
+        assertThat(rejected).hasValue(REQUESTS - LIMIT);
+        assertThat(counter("CONFIRMED")).isEqualTo(LIMIT);
+    }
+
+    @Test
+    void updateRequestStatus_shouldNotExceedLimit_whenRequestsAreConfirmedConcurrently() throws Exception {
+        mockEvent(true);
+        List<Long> requestIds = LongStream.rangeClosed(1, REQUESTS)
+                .mapToObj(userId -> requestService.createRequest(userId, EVENT_ID).getId())
+                .toList();
+
+        AtomicInteger confirmed = new AtomicInteger();
+        List<Callable<Void>> confirmations = new ArrayList<>();
+        for (Long requestId : requestIds) {
+            RequestStatusUpdate update = RequestStatusUpdate.builder()
+                    .requestIds(List.of(requestId))
+                    .status("CONFIRMED")
+                    .build();
+            confirmations.add(() -> {
+                try {
+                    confirmed.addAndGet(requestService.updateRequestStatus(INITIATOR_ID, EVENT_ID, update)
+                            .confirmedIds().length);
+                } catch (RuleViolationException e) {
+                    // Лимит достигнут или заявка уже отклонена автоматически
+                }
+                return null;
+            });
+        }
+        runConcurrently("подтверждение заявок", confirmations);
+
+        assertThat(countRequests("CONFIRMED")).isEqualTo(LIMIT);
+        assertThat(confirmed).hasValue(LIMIT);
+        assertThat(countRequests("PENDING")).isZero();
+        assertThat(countRequests("REJECTED")).isEqualTo(REQUESTS - LIMIT);
+        assertThat(counter("CONFIRMED")).isEqualTo(LIMIT);
+        assertThat(counter("PENDING")).isZero();
+        assertThat(counter("REJECTED")).isEqualTo(REQUESTS - LIMIT);
+    }
+
+    @Test
+    void reconcile_shouldFixCounters_whenRequestsChangeConcurrently() throws Exception {
+        mockEvent(false);
+        // Расхождения, которые должна исправить сверка: заявки без счётчика и счётчик без заявок
+        jdbcTemplate.update("INSERT INTO requests (event_id, requester_id, status) " +
+                "SELECT 2, g, 'PENDING' FROM generate_series(1, 50) g");
+        jdbcTemplate.update("INSERT INTO request_counts (event_id, status, count) VALUES (3, 'CONFIRMED', 7)");
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (long userId = 1; userId <= REQUESTS; userId++) {
+            long requester = userId;
+            tasks.add(() -> {
+                try {
+                    requestService.createRequest(requester, EVENT_ID);
+                } catch (RuleViolationException e) {
+                    // Лимит достигнут
+                }
+                return null;
+            });
+            if (userId % 100 == 0) {
+                tasks.add(() -> {
+                    requestCountsReconciler.reconcile();
+                    return null;
+                });
+            }
+        }
+        runConcurrently("создание заявок во время сверки", tasks);
+        requestCountsReconciler.reconcile();
+
+        assertThat(countRequests("CONFIRMED")).isEqualTo(LIMIT);
+        assertThat(counter("CONFIRMED")).isEqualTo(LIMIT);
+        assertThat(jdbcTemplate.queryForObject("SELECT count FROM request_counts WHERE event_id = 2 AND status = 'PENDING'",
+                Long.class)).isEqualTo(50L);
+        assertThat(jdbcTemplate.queryForObject("SELECT count FROM request_counts WHERE event_id = 3 AND status = 'CONFIRMED'",
+                Long.class)).isZero();
+    }
+
+    @Test
+    void writeStatusUpdate_shouldWriteCommittedResult_whenLimitIsReached() {
+        mockEvent(true);
+        List<Long> requestIds = LongStream.rangeClosed(1, LIMIT + 10)
+                .mapToObj(userId -> requestService.createRequest(userId, EVENT_ID).getId())
+                .toList();
+
+        RequestStatusUpdate overLimit = RequestStatusUpdate.builder()
+                .requestIds(requestIds.subList(0, LIMIT + 1))
+                .status("CONFIRMED")
+                .build();
+        assertThatThrownBy(() -> requestService.updateRequestStatus(INITIATOR_ID, EVENT_ID, overLimit))
+                .isInstanceOf(RuleViolationException.class);
+        assertThat(countRequests("PENDING")).isEqualTo(LIMIT + 10);
+
+        RequestStatusUpdate update = RequestStatusUpdate.builder()
+                .requestIds(requestIds.subList(0, LIMIT))
+                .status("CONFIRMED")
+                .build();
+        RequestStatusUpdateResult result = requestService.updateRequestStatus(INITIATOR_ID, EVENT_ID, update);
+
+        List<RequestDto> confirmed = new ArrayList<>();
+        List<RequestDto> rejected = new ArrayList<>();
+        requestService.writeStatusUpdate(result, new RequestStatusUpdateSink() {
+            @Override
+            public void confirmed(RequestDto request) {
+                confirmed.add(request);
+            }
+
+            @Override
+            public void rejected(RequestDto request) {
+                rejected.add(request);
+            }
+        });
+
+        assertThat(confirmed).extracting(RequestDto::getId).containsExactlyElementsOf(requestIds.subList(0, LIMIT));
+        assertThat(confirmed).extracting(RequestDto::getStatus).containsOnly("CONFIRMED");
+        assertThat(rejected).extracting(RequestDto::getId)
+                .containsExactlyElementsOf(requestIds.subList(LIMIT, LIMIT + 10));
+        assertThat(rejected).extracting(RequestDto::getStatus).containsOnly("REJECTED");
+    }
+
+    private void mockEvent(boolean requestModeration) {
+        EventFullDto event = EventFullDto.builder()
+                .id(EVENT_ID)
+                .initiator(UserShortDto.builder().id(INITIATOR_ID).name("initiator").build())
+                .state(EventState.PUBLISHED.name())
+                .participantLimit(LIMIT)
+                .requestModeration(requestModeration)
+                .build();
+        when(eventClient.getByIdAndState(eq(EVENT_ID), any())).thenReturn(event);
+    }
+
+    // Задачи стартуют одновременно; в лог пишется пропускная способность
+    private void runConcurrently(String name, List<Callable<Void>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> results = new ArrayList<>();
+        for (Callable<Void> task : tasks) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<Void> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        log.info("{}: {} операций в {} потоков за {} мс, {} операций/с",
+                name, tasks.size(), THREADS, elapsedMs, tasks.size() * 1000L / elapsedMs);
+    }
+
+    private long countRequests(String status) {
+        return status == null
+                ? jdbcTemplate.queryForObject("SELECT COUNT(*) FROM requests WHERE event_id = ?", Long.class, EVENT_ID)
+                : jdbcTemplate.queryForObject("SELECT COUNT(*) FROM requests WHERE event_id = ? AND status = ?",
+                Long.class, EVENT_ID, status);
+    }
+
+    private long counter(String status) {
+        return jdbcTemplate.queryForList("SELECT count FROM request_counts WHERE event_id = ? AND status = ?",
+                        Long.class, EVENT_ID, status)
+                .stream()
+                .findFirst()
+                .orElse(0L);
+    }
+}
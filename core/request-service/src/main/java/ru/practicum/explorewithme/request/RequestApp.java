@@ -3,9 +3,11 @@ package ru.practicum.explorewithme.request;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableFeignClients
+@EnableScheduling
 public class RequestApp {
     public static void main(String[] args) {
         SpringApplication.run(RequestApp.class, args);
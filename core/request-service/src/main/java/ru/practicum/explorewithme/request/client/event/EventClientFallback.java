@@ -4,6 +4,7 @@ import jakarta.annotation.Nullable;
 import jakarta.validation.constraints.Positive;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import ru.practicum.explorewithme.api.event.dto.ConfirmedRequestsDto;
 import ru.practicum.explorewithme.api.event.dto.EventFullDto;
 import ru.practicum.explorewithme.api.event.dto.EventShortDto;
 import ru.practicum.explorewithme.api.event.enums.EventState;
@@ -28,4 +29,11 @@ public class EventClientFallback implements EventClient {
         return List.of();
     }
 
+    @Override
+    public void updateConfirmedRequests(List<ConfirmedRequestsDto> counts) {
+        log.warn("Сервис Event недоступен, fallback кинул ServiceUnavailableException для подтверждённых заявок {} событий",
+                counts.size());
+        throw new ServiceUnavailableException("Сервис Event недоступен");
+    }
+
 }
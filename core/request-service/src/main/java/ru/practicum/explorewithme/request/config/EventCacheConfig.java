@@ -0,0 +1,26 @@
+package ru.practicum.explorewithme.request.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.explorewithme.api.event.cache.EventCache;
+import ru.practicum.explorewithme.request.client.event.EventClient;
+
+import java.time.Duration;
+
+@Configuration
+public class EventCacheConfig {
+    @Bean
+    public EventCache eventCache(
+            EventClient eventClient,
+            MeterRegistry meterRegistry,
+            @Value("${ru.practicum.explorewithme.cache.events.maxSize:10000}") long maxSize,
+            @Value("${ru.practicum.explorewithme.cache.events.ttlSeconds:30}") long ttlSeconds
+    ) {
+        EventCache eventCache = new EventCache(eventClient, maxSize, Duration.ofSeconds(ttlSeconds));
+        CaffeineCacheMetrics.monitor(meterRegistry, eventCache.getCache(), "events");
+        return eventCache;
+    }
+}
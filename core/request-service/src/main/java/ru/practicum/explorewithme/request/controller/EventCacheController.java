@@ -0,0 +1,23 @@
+package ru.practicum.explorewithme.request.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.explorewithme.api.event.cache.EventCache;
+import ru.practicum.explorewithme.api.event.service.EventCacheApi;
+
+@Slf4j
+@RestController
+@Validated
+@RequiredArgsConstructor
+public class EventCacheController implements EventCacheApi {
+
+    private final EventCache eventCache;
+
+    @Override
+    public void evictEvent(Long eventId) {
+        log.debug("Сброс события {} из кэша", eventId);
+        eventCache.evict(eventId);
+    }
+}
@@ -1,14 +1,20 @@
 package ru.practicum.explorewithme.request.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.explorewithme.api.request.dto.RequestDto;
 import ru.practicum.explorewithme.request.dto.RequestStatusUpdate;
-import ru.practicum.explorewithme.request.dto.RequestStatusUpdateResult;
 import ru.practicum.explorewithme.request.service.RequestService;
+import ru.practicum.explorewithme.request.service.RequestStatusUpdateResult;
 
 import java.util.List;
 
@@ -18,10 +24,24 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PrivateRequestController {
     private final RequestService requestService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/requests")
-    public List<RequestDto> getUserRequests(@PathVariable Long userId) {
-        return requestService.getUserRequests(userId);
+    public List<RequestDto> getUserRequests(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero Long afterId,
+            @RequestParam(required = false) @Positive Integer size
+    ) {
+        return requestService.getUserRequests(userId, afterId, size);
+    }
+
+    @GetMapping(path = "/requests/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody exportUserRequests(@PathVariable Long userId) {
+        return out -> {
+            RequestNdjsonWriter writer = new RequestNdjsonWriter(objectMapper, out);
+            requestService.exportUserRequests(userId, writer);
+            writer.finish();
+        };
     }
 
     @PostMapping("/requests")
@@ -44,18 +64,44 @@ public class PrivateRequestController {
 
     @GetMapping("/events/{eventId}/requests")
     public List<RequestDto> getEventRequests(
+            @PathVariable Long userId,
+            @PathVariable Long eventId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero Long afterId,
+            @RequestParam(required = false) @Positive Integer size
+    ) {
+        return requestService.getEventRequests(userId, eventId, afterId, size);
+    }
+
+    @GetMapping(path = "/events/{eventId}/requests/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody exportEventRequests(
             @PathVariable Long userId,
             @PathVariable Long eventId
     ) {
-        return requestService.getEventRequests(userId, eventId);
+        return out -> {
+            RequestNdjsonWriter writer = new RequestNdjsonWriter(objectMapper, out);
+            requestService.exportEventRequests(userId, eventId, writer);
+            writer.finish();
+        };
     }
 
+    /**
+     * Заявки меняются и фиксируются до начала ответа, поэтому ошибка отдаётся обработчиком ошибок целиком,
+     * а блокировки не ждут клиента. Затем заявки результата читаются порциями по ID и пишутся в ответ потоком.
+     */
     @PatchMapping("/events/{eventId}/requests")
-    public RequestStatusUpdateResult updateRequestStatus(
+    public ResponseEntity<StreamingResponseBody> updateRequestStatus(
             @PathVariable Long userId,
             @PathVariable Long eventId,
             @RequestBody @Valid RequestStatusUpdate updateRequest
     ) {
-        return requestService.updateRequestStatus(userId, eventId, updateRequest);
+        RequestStatusUpdateResult result = requestService.updateRequestStatus(userId, eventId, updateRequest);
+        StreamingResponseBody body = out -> {
+            RequestStatusUpdateJsonWriter writer = new RequestStatusUpdateJsonWriter(objectMapper, out);
+            requestService.writeStatusUpdate(result, writer);
+            writer.finish();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 }
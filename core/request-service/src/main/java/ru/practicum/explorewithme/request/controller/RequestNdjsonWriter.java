@@ -0,0 +1,50 @@
+package ru.practicum.explorewithme.request.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import ru.practicum.explorewithme.api.request.dto.RequestDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Пишет заявки в поток по одной JSON-строке (NDJSON). Ничего не пишет до первой заявки, поэтому ошибка проверки
+ * ещё может быть отдана обработчиком ошибок.
+ */
+class RequestNdjsonWriter implements Consumer<RequestDto> {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter requestWriter;
+    private final OutputStream out;
+    private JsonGenerator generator;
+
+    RequestNdjsonWriter(ObjectMapper objectMapper, OutputStream out) {
+        this.objectMapper = objectMapper;
+        this.requestWriter = objectMapper.writerFor(RequestDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.out = out;
+    }
+
+    @Override
+    public void accept(RequestDto request) {
+        try {
+            if (generator == null) {
+                generator = objectMapper.getFactory().createGenerator(out);
+            }
+            requestWriter.writeValue(generator, request);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void finish() throws IOException {
+        if (generator != null) {
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.explorewithme.request.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import ru.practicum.explorewithme.api.request.dto.RequestDto;
+import ru.practicum.explorewithme.request.service.RequestStatusUpdateSink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Пишет результат модерации в поток в виде {"confirmedRequests": [...], "rejectedRequests": [...]}
+ * по мере поступления заявок. Ничего не пишет до первой заявки.
+ */
+class RequestStatusUpdateJsonWriter implements RequestStatusUpdateSink {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter requestWriter;
+    private final OutputStream out;
+    private JsonGenerator generator;
+    private boolean rejectedStarted;
+
+    RequestStatusUpdateJsonWriter(ObjectMapper objectMapper, OutputStream out) {
+        this.objectMapper = objectMapper;
+        this.requestWriter = objectMapper.writerFor(RequestDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.out = out;
+    }
+
+    @Override
+    public void confirmed(RequestDto request) {
+        try {
+            start();
+            if (rejectedStarted) {
+                throw new IllegalStateException("Подтверждённые заявки должны передаваться раньше отклонённых");
+            }
+            requestWriter.writeValue(generator, request);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void rejected(RequestDto request) {
+        try {
+            startRejected();
+            requestWriter.writeValue(generator, request);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void finish() throws IOException {
+        startRejected();
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private void start() throws IOException {
+        if (generator == null) {
+            generator = objectMapper.getFactory().createGenerator(out);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("confirmedRequests");
+        }
+    }
+
+    private void startRejected() throws IOException {
+        start();
+        if (!rejectedStarted) {
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("rejectedRequests");
+            rejectedStarted = true;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.explorewithme.request.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.explorewithme.api.user.cache.UserCache;
+import ru.practicum.explorewithme.api.user.service.UserCacheApi;
+
+@Slf4j
+@RestController
+@Validated
+@RequiredArgsConstructor
+public class UserCacheController implements UserCacheApi {
+
+    private final UserCache userCache;
+
+    @Override
+    public void evictUser(Long userId) {
+        log.debug("Сброс пользователя {} из кэша", userId);
+        userCache.evict(userId);
+    }
+}
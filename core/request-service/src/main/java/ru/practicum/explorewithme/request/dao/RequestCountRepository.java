@@ -0,0 +1,228 @@
+package ru.practicum.explorewithme.request.dao;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.explorewithme.api.event.dto.ConfirmedRequestsDto;
+import ru.practicum.explorewithme.api.request.enums.RequestStatus;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Счётчики заявок по (event_id, status). Меняются в той же транзакции, что и заявки,
+ * поэтому число заявок события читается по первичному ключу без агрегации по requests.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RequestCountRepository {
+
+    private static final String ADD_SQL = "INSERT INTO request_counts (event_id, status, count) VALUES (?, ?, ?) " +
+            "ON CONFLICT (event_id, status) DO UPDATE SET count = request_counts.count + EXCLUDED.count";
+
+    // Строка счётчика блокируется до конца транзакции, поэтому параллельные проверки лимита выполняются по очереди
+    private static final String ADD_WITHIN_LIMIT_SQL = "INSERT INTO request_counts (event_id, status, count) " +
+            "VALUES (?, ?, ?) " +
+            "ON CONFLICT (event_id, status) DO UPDATE SET count = request_counts.count + EXCLUDED.count " +
+            "WHERE request_counts.count + EXCLUDED.count <= ?";
+
+    private static final String FIND_SQL = "SELECT event_id, count FROM request_counts " +
+            "WHERE status = ? AND event_id = ANY (?)";
+
+    private static final String FIND_CONFIRMED_SQL = "SELECT event_id, count, version FROM request_counts " +
+            "WHERE status = 'CONFIRMED' AND event_id = ?";
+
+    private static final String FIND_CONFIRMED_AFTER_SQL = "SELECT event_id, count, version FROM request_counts " +
+            "WHERE status = 'CONFIRMED' AND event_id > ? ORDER BY event_id LIMIT ?";
+
+    // События с заявками или счётчиками после afterEventId: каждая часть читается по индексу и останавливается
+    // на limit событиях
+    private static final String FIND_EVENT_IDS_AFTER_SQL = "SELECT event_id FROM (" +
+            "(SELECT DISTINCT event_id FROM requests WHERE event_id > ? ORDER BY event_id LIMIT ?) UNION " +
+            "(SELECT DISTINCT event_id FROM request_counts WHERE event_id > ? ORDER BY event_id LIMIT ?)" +
+            ") ids ORDER BY event_id LIMIT ?";
+
+    private static final String LOCK_EVENTS_SQL = "SELECT pg_advisory_xact_lock(id) FROM " +
+            "(SELECT id FROM unnest(?::bigint[]) AS id ORDER BY id) ids";
+
+    private static final String RECONCILE_SQL = "INSERT INTO request_counts (event_id, status, count) " +
+            "SELECT event_id, status, COUNT(*) FROM requests WHERE event_id = ANY (?) GROUP BY event_id, status " +
+            "ON CONFLICT (event_id, status) DO UPDATE SET count = EXCLUDED.count " +
+            "WHERE request_counts.count <> EXCLUDED.count";
+
+    private static final String RESET_ORPHANS_SQL = "UPDATE request_counts c SET count = 0 " +
+            "WHERE c.event_id = ANY (?) AND c.count <> 0 AND NOT EXISTS " +
+            "(SELECT 1 FROM requests r WHERE r.event_id = c.event_id AND r.status = c.status)";
+
+    // Ключи advisory-блокировок фоновых задач. Они из двух чисел: такие ключи не пересекаются
+    // с однокомпонентными ключами блокировок событий (ID события)
+    private static final int LOCK_CLASS = 1;
+    private static final int CONFIRMED_SYNC_LOCK = 1;
+    private static final int RECONCILE_LOCK = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Прибавляет к счётчикам события изменения по статусам. Вызывать в транзакции изменения заявок;
+     * строки обновляются в порядке статусов, чтобы параллельные транзакции не блокировали друг друга крест-накрест.
+     */
+    public void add(Long eventId, Map<RequestStatus, Long> deltas) {
+        List<Object[]> rows = new ArrayList<>();
+        deltas.entrySet().stream()
+                .filter(delta -> delta.getValue() != 0)
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(delta -> rows.add(new Object[]{eventId, delta.getKey().name(), delta.getValue()}));
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_SQL, rows);
+        }
+    }
+
+    public void add(Long eventId, RequestStatus status, long delta) {
+        add(eventId, Map.of(status, delta));
+    }
+
+    /**
+     * Атомарно прибавляет delta к счётчику, если результат не превысит limit. Вызывать в транзакции
+     * изменения заявок до изменения самих заявок.
+     *
+     * @return false, если лимит был бы превышен; счётчик при этом не меняется
+     */
+    public boolean addWithinLimit(Long eventId, RequestStatus status, long delta, long limit) {
+        if (delta > limit) {
+            return false;
+        }
+        return jdbcTemplate.update(ADD_WITHIN_LIMIT_SQL, eventId, status.name(), delta, limit) > 0;
+    }
+
+    public long get(Long eventId, RequestStatus status) {
+        return find(status, List.of(eventId)).getOrDefault(eventId, 0L);
+    }
+
+    /**
+     * Счётчики событий в статусе; события без заявок в результат не попадают.
+     */
+    public Map<Long, Long> find(RequestStatus status, Collection<Long> eventIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (eventIds.isEmpty()) {
+            return counts;
+        }
+        jdbcTemplate.query(con -> {
+            Array ids = con.createArrayOf("bigint", eventIds.toArray());
+            var ps = con.prepareStatement(FIND_SQL);
+            ps.setString(1, status.name());
+            ps.setArray(2, ids);
+            return ps;
+        }, rs -> {
+            long count = rs.getLong("count");
+            if (count > 0) {
+                counts.put(rs.getLong("event_id"), count);
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Число подтверждённых заявок события вместе с версией счётчика; пусто, если заявки не подтверждались.
+     */
+    public Optional<ConfirmedRequestsDto> findConfirmed(Long eventId) {
+        return jdbcTemplate.query(FIND_CONFIRMED_SQL, (rs, rowNum) -> toConfirmedRequestsDto(rs), eventId)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Берёт до конца транзакции блокировку сверки подтверждённых заявок с event-service, если её не держит
+     * другой экземпляр.
+     */
+    public boolean tryLockConfirmedSync() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?, ?)", Boolean.class,
+                LOCK_CLASS, CONFIRMED_SYNC_LOCK));
+    }
+
+    /**
+     * Берёт до конца транзакции блокировку сверки счётчиков с таблицей заявок, если её не держит другой экземпляр.
+     */
+    public boolean tryLockReconcile() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?, ?)", Boolean.class,
+                LOCK_CLASS, RECONCILE_LOCK));
+    }
+
+    /**
+     * Ждёт блокировку изменения статусов заявок события; она держится до конца транзакции.
+     */
+    public void lockEvent(Long eventId) {
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> {
+        }, eventId);
+    }
+
+    /**
+     * Ждёт разделяемую блокировку события для создания или отмены заявки: такие изменения идут параллельно
+     * друг другу, но не во время модерации и сверки счётчиков события. Держится до конца транзакции.
+     */
+    public void lockEventShared(Long eventId) {
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock_shared(?)", rs -> {
+        }, eventId);
+    }
+
+    /**
+     * До limit событий с ID больше afterEventId, у которых есть заявки или счётчики, в порядке ID.
+     */
+    public List<Long> findEventIdsAfter(long afterEventId, int limit) {
+        return jdbcTemplate.queryForList(FIND_EVENT_IDS_AFTER_SQL, Long.class,
+                afterEventId, limit, afterEventId, limit, limit);
+    }
+
+    /**
+     * Порция подтверждённых заявок событий с ID больше afterEventId в порядке ID.
+     */
+    public List<ConfirmedRequestsDto> findConfirmedAfter(long afterEventId, int limit) {
+        return jdbcTemplate.query(FIND_CONFIRMED_AFTER_SQL, (rs, rowNum) -> toConfirmedRequestsDto(rs),
+                afterEventId, limit);
+    }
+
+    /**
+     * Пересчитывает счётчики событий по таблице заявок в отдельной транзакции. События блокируются так же,
+     * как при модерации: изменения их заявок, закоммиченные раньше, попадут в пересчёт, а начатые позже
+     * дождутся его и прибавятся к новым значениям. Заявки других событий меняются параллельно.
+     *
+     * @param eventIds события по возрастанию ID
+     * @return число исправленных счётчиков
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int reconcile(List<Long> eventIds) {
+        Long[] ids = eventIds.toArray(Long[]::new);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LOCK_EVENTS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        }, rs -> {
+        });
+        return updateForEvents(RECONCILE_SQL, ids) + updateForEvents(RESET_ORPHANS_SQL, ids);
+    }
+
+    private int updateForEvents(String sql, Long[] eventIds) {
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("bigint", eventIds));
+            return ps;
+        });
+    }
+
+    private static ConfirmedRequestsDto toConfirmedRequestsDto(ResultSet rs) throws SQLException {
+        return ConfirmedRequestsDto.builder()
+                .eventId(rs.getLong("event_id"))
+                .count(rs.getLong("count"))
+                .version(rs.getLong("version"))
+                .build();
+    }
+}
@@ -0,0 +1,174 @@
+package ru.practicum.explorewithme.request.dao;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.explorewithme.api.request.enums.RequestStatus;
+import ru.practicum.explorewithme.request.model.Request;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Множественные операции над заявками одним запросом, без загрузки сущностей в контекст JPA.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RequestJdbcRepository {
+
+    private static final String RETURNING = " RETURNING id, created, event_id, requester_id, status";
+
+    private static final String UPDATE_PENDING_SQL = "UPDATE requests SET status = ? " +
+            "WHERE event_id = ? AND status = 'PENDING' AND id = ANY (?)" + RETURNING;
+
+    private static final String REJECT_PENDING_SQL = "UPDATE requests SET status = 'REJECTED' " +
+            "WHERE event_id = ? AND status = 'PENDING'" + RETURNING;
+
+    // Заявка, её счётчик и проверка лимита - один запрос. Дубликат или достигнутый лимит дают пустой результат;
+    // счётчик подтверждённых увеличивается атомарно и только в пределах лимита, иначе counted = false
+    private static final String INSERT_SQL = "WITH inserted AS (" +
+            "INSERT INTO requests (event_id, requester_id, status) " +
+            "SELECT :eventId, :requesterId, :status " +
+            "WHERE NOT EXISTS (SELECT 1 FROM requests WHERE event_id = :eventId AND requester_id = :requesterId) " +
+            "AND (:limit = 0 OR COALESCE((SELECT count FROM request_counts " +
+            "WHERE event_id = :eventId AND status = 'CONFIRMED'), 0) < :limit)" + RETURNING +
+            "), counted AS (" +
+            "INSERT INTO request_counts (event_id, status, count) SELECT event_id, status, 1 FROM inserted " +
+            "ON CONFLICT (event_id, status) DO UPDATE SET count = request_counts.count + 1 " +
+            "WHERE EXCLUDED.status <> 'CONFIRMED' OR :limit = 0 OR request_counts.count + 1 <= :limit " +
+            "RETURNING 1" +
+            ") SELECT i.*, EXISTS (SELECT 1 FROM counted) AS counted FROM inserted i";
+
+    private static final String SELECT_BY_EVENT_SQL = "SELECT id, created, event_id, requester_id, status " +
+            "FROM requests WHERE event_id = ? ORDER BY id";
+
+    private static final String SELECT_BY_REQUESTER_SQL = "SELECT id, created, event_id, requester_id, status " +
+            "FROM requests WHERE requester_id = ? ORDER BY id";
+
+    private static final String SELECT_BY_IDS_SQL = "SELECT id, created, event_id, requester_id, status " +
+            "FROM requests WHERE id = ANY (?) ORDER BY id";
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int IDS_CHUNK_SIZE = 1000;
+
+    private static final RowMapper<Request> ROW_MAPPER = (rs, rowNum) -> {
+        Request request = new Request();
+        request.setId(rs.getLong("id"));
+        request.setCreated(rs.getObject("created", LocalDateTime.class));
+        request.setEventId(rs.getLong("event_id"));
+        request.setRequesterId(rs.getLong("requester_id"));
+        request.setStatus(RequestStatus.valueOf(rs.getString("status")));
+        return request;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Создаёт заявку и увеличивает счётчик её статуса одним запросом; created и id возвращает сама вставка.
+     *
+     * @param limit лимит участников события, 0 - без лимита
+     * @return пусто, если заявка пользователя на событие уже есть или лимит достигнут
+     */
+    public Optional<InsertedRequest> insert(Long eventId, Long requesterId, RequestStatus status, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("eventId", eventId)
+                .addValue("requesterId", requesterId)
+                .addValue("status", status.name())
+                .addValue("limit", limit);
+        return namedParameterJdbcTemplate.query(INSERT_SQL, params,
+                        (rs, rowNum) -> new InsertedRequest(ROW_MAPPER.mapRow(rs, rowNum), rs.getBoolean("counted")))
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Переводит в status заявки события из ids, ожидающие решения. Заявки других событий
+     * и в других статусах не меняются и в результат не попадают.
+     */
+    public List<Request> updatePendingStatus(Long eventId, Collection<Long> ids, RequestStatus status) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(UPDATE_PENDING_SQL);
+            ps.setString(1, status.name());
+            ps.setLong(2, eventId);
+            ps.setArray(3, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, ROW_MAPPER);
+    }
+
+    /**
+     * Отклоняет все ожидающие заявки события и передаёт отклонённые в consumer по мере чтения:
+     * строки читаются порциями, память не зависит от числа заявок. Вызывать в транзакции.
+     *
+     * @return число отклонённых заявок
+     */
+    public long rejectAllPending(Long eventId, Consumer<Request> consumer) {
+        long[] rejected = {0};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(REJECT_PENDING_SQL);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, eventId);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            consumer.accept(ROW_MAPPER.mapRow(rs, rs.getRow()));
+            rejected[0]++;
+        });
+        return rejected[0];
+    }
+
+    /**
+     * Передаёт заявки события в consumer по мере чтения курсором. Вызывать в транзакции:
+     * без неё драйвер PostgreSQL читает весь результат в память.
+     */
+    public void streamByEventId(Long eventId, Consumer<Request> consumer) {
+        stream(SELECT_BY_EVENT_SQL, eventId, consumer);
+    }
+
+    /**
+     * Передаёт заявки пользователя в consumer по мере чтения курсором. Вызывать в транзакции.
+     */
+    public void streamByRequesterId(Long requesterId, Consumer<Request> consumer) {
+        stream(SELECT_BY_REQUESTER_SQL, requesterId, consumer);
+    }
+
+    /**
+     * Передаёт в consumer заявки с ID из ids, упорядоченных по возрастанию; читает порциями по IDS_CHUNK_SIZE ID.
+     */
+    public void findAllByIds(long[] ids, Consumer<Request> consumer) {
+        for (int from = 0; from < ids.length; from += IDS_CHUNK_SIZE) {
+            Long[] chunk = Arrays.stream(ids, from, Math.min(ids.length, from + IDS_CHUNK_SIZE))
+                    .boxed()
+                    .toArray(Long[]::new);
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SELECT_BY_IDS_SQL);
+                ps.setArray(1, con.createArrayOf("bigint", chunk));
+                return ps;
+            }, (RowCallbackHandler) rs -> consumer.accept(ROW_MAPPER.mapRow(rs, rs.getRow())));
+        }
+    }
+
+    private void stream(String sql, Long id, Consumer<Request> consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, id);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Созданная заявка; counted = false, если подтверждение не уместилось в лимит и транзакцию нужно откатить.
+     */
+    public record InsertedRequest(Request request, boolean counted) {
+    }
+}
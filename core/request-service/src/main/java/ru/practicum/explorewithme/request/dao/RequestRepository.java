@@ -1,35 +1,26 @@
 package ru.practicum.explorewithme.request.dao;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import ru.practicum.explorewithme.api.request.enums.RequestStatus;
 import ru.practicum.explorewithme.request.model.Request;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 @Repository
 public interface RequestRepository extends JpaRepository<Request, Long> {
     boolean existsByRequesterIdAndEventId(Long requesterId, Long eventId);
 
-    long countByEventIdAndStatus(Long eventId, RequestStatus status);
-
     List<Request> findByRequesterId(Long requesterId);
 
     List<Request> findByEventId(Long eventId);
 
-    Optional<Request> findByIdAndRequesterId(Long id, Long requesterId);
+    List<Request> findByEventIdAndIdGreaterThanOrderByIdAsc(Long eventId, Long afterId, Limit limit);
 
-    List<Request> findByEventIdAndStatus(Long eventId, RequestStatus status);
+    List<Request> findByRequesterIdAndIdGreaterThanOrderByIdAsc(Long requesterId, Long afterId, Limit limit);
 
-    Optional<Request> findByIdAndEventId(Long id, Long eventId);
+    Optional<Request> findByIdAndRequesterId(Long id, Long requesterId);
 
-    @Query("SELECT r.eventId, COUNT(r) " +
-            "FROM Request r " +
-            "WHERE r.eventId IN :eventIds AND r.status = :status " +
-            "GROUP BY r.eventId")
-    List<Object[]> getRequestsCountsByStatusAndEventIds(@Param("status") RequestStatus status, @Param("eventIds") Set<Long> eventIds);
+    Optional<Request> findByIdAndEventId(Long id, Long eventId);
 }
@@ -0,0 +1,7 @@
+package ru.practicum.explorewithme.request.service;
+
+/**
+ * Изменилось число подтверждённых заявок события.
+ */
+public record ConfirmedRequestsChanged(Long eventId) {
+}
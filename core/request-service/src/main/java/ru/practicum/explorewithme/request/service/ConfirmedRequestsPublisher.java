@@ -0,0 +1,40 @@
+package ru.practicum.explorewithme.request.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.explorewithme.api.event.dto.ConfirmedRequestsDto;
+import ru.practicum.explorewithme.request.client.event.EventClient;
+import ru.practicum.explorewithme.request.dao.RequestCountRepository;
+
+import java.util.List;
+
+/**
+ * Передаёт в event-service число подтверждённых заявок события после фиксации транзакции.
+ * Передаётся абсолютное значение с версией счётчика, прочитанное после фиксации: event-service не применяет
+ * значения старше сохранённого, поэтому повторная и переупорядоченная доставка безопасны. Не переданное
+ * из-за сбоя значение доставит {@link ConfirmedRequestsSynchronizer}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConfirmedRequestsPublisher {
+
+    private final RequestCountRepository requestCountRepository;
+    private final EventClient eventClient;
+
+    @TransactionalEventListener
+    public void onConfirmedRequestsChanged(ConfirmedRequestsChanged changed) {
+        Long eventId = changed.eventId();
+        try {
+            requestCountRepository.findConfirmed(eventId).ifPresent(confirmed -> {
+                eventClient.updateConfirmedRequests(List.of(confirmed));
+                log.debug("Число подтверждённых заявок события {} передано в event-service: {}", eventId, confirmed);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Не удалось передать число подтверждённых заявок события {}, его передаст периодическая сверка: {}",
+                    eventId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.explorewithme.request.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.explorewithme.api.event.dto.ConfirmedRequestsDto;
+import ru.practicum.explorewithme.request.client.event.EventClient;
+import ru.practicum.explorewithme.request.dao.RequestCountRepository;
+
+import java.util.List;
+
+/**
+ * Периодически передаёт в event-service числа подтверждённых заявок всех событий порциями по ID:
+ * при первом запуске заполняет events.confirmed_requests на существующих данных, дальше доставляет
+ * значения, не переданные {@link ConfirmedRequestsPublisher} из-за сбоя. event-service применяет только
+ * значения новее сохранённых. Сверку выполняет один экземпляр, остальные её пропускают.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConfirmedRequestsSynchronizer {
+
+    private final RequestCountRepository requestCountRepository;
+    private final EventClient eventClient;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${ru.practicum.explorewithme.confirmedRequests.syncBatchSize:500}")
+    private int batchSize;
+
+    @Scheduled(
+            initialDelayString = "${ru.practicum.explorewithme.confirmedRequests.syncInitialDelayMs:30000}",
+            fixedDelayString = "${ru.practicum.explorewithme.confirmedRequests.syncMs:600000}"
+    )
+    public void sync() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!requestCountRepository.tryLockConfirmedSync()) {
+                    log.debug("Сверку подтверждённых заявок выполняет другой экземпляр");
+                    return;
+                }
+                long start = System.currentTimeMillis();
+                long synced = syncAll();
+                log.info("Сверка подтверждённых заявок {} событий с event-service заняла {} мс",
+                        synced, System.currentTimeMillis() - start);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Сверка подтверждённых заявок с event-service прервана: {}", e.getMessage());
+        }
+    }
+
+    private long syncAll() {
+        long lastEventId = 0;
+        long total = 0;
+        while (true) {
+            List<ConfirmedRequestsDto> batch = requestCountRepository.findConfirmedAfter(lastEventId, batchSize);
+            if (batch.isEmpty()) {
+                return total;
+            }
+            eventClient.updateConfirmedRequests(batch);
+            lastEventId = batch.getLast().getEventId();
+            total += batch.size();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.explorewithme.request.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.explorewithme.request.dao.RequestCountRepository;
+
+import java.util.List;
+
+/**
+ * Сверяет счётчики заявок с таблицей заявок: при запуске (заполняет счётчики на существующих данных)
+ * и периодически, исправляя расхождения после ручных правок в БД. События пересчитываются порциями
+ * по ID, каждая своей транзакцией под блокировками событий, поэтому изменения заявок ждут только пересчёта
+ * своей порции. Сверку выполняет один экземпляр, остальные её пропускают.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestCountsReconciler {
+
+    private final RequestCountRepository requestCountRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${ru.practicum.explorewithme.requestCounts.reconcileBatchSize:200}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+    }
+
+    @Scheduled(
+            initialDelayString = "${ru.practicum.explorewithme.requestCounts.reconcileMs:3600000}",
+            fixedDelayString = "${ru.practicum.explorewithme.requestCounts.reconcileMs:3600000}"
+    )
+    public void reconcile() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!requestCountRepository.tryLockReconcile()) {
+                    log.debug("Сверку счётчиков заявок выполняет другой экземпляр");
+                    return;
+                }
+                long start = System.currentTimeMillis();
+                int fixed = reconcileAll();
+                if (fixed > 0) {
+                    log.warn("Исправлено счётчиков заявок: {}", fixed);
+                }
+                log.info("Сверка счётчиков заявок заняла {} мс", System.currentTimeMillis() - start);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Сверка счётчиков заявок прервана: {}", e.getMessage());
+        }
+    }
+
+    private int reconcileAll() {
+        long lastEventId = 0;
+        int fixed = 0;
+        while (true) {
+            List<Long> eventIds = requestCountRepository.findEventIdsAfter(lastEventId, batchSize);
+            if (eventIds.isEmpty()) {
+                return fixed;
+            }
+            fixed += requestCountRepository.reconcile(eventIds);
+            lastEventId = eventIds.getLast();
+        }
+    }
+}
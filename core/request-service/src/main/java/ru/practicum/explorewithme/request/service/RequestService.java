@@ -3,9 +3,9 @@ package ru.practicum.explorewithme.request.service;
 import jakarta.validation.Valid;
 import ru.practicum.explorewithme.api.request.dto.RequestDto;
 import ru.practicum.explorewithme.request.dto.RequestStatusUpdate;
-import ru.practicum.explorewithme.request.dto.RequestStatusUpdateResult;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface RequestService {
 
@@ -13,9 +13,29 @@ public interface RequestService {
 
     RequestDto cancelRequest(Long userId, Long requestId);
 
-    List<RequestDto> getEventRequests(Long userId, Long eventId);
-
+    /**
+     * Заявки на событие по возрастанию id. Без size возвращаются все заявки, иначе страница из size заявок
+     * с id больше afterId; следующую страницу запрашивают с afterId последней заявки.
+     */
+    List<RequestDto> getEventRequests(Long userId, Long eventId, Long afterId, Integer size);
+
+    /**
+     * Передаёт все заявки на событие в consumer по возрастанию id, не собирая их в памяти.
+     */
+    void exportEventRequests(Long userId, Long eventId, Consumer<RequestDto> consumer);
+
+    /**
+     * Меняет статус заявок на участие одной транзакцией и возвращает ID изменённых заявок, включая автоматически
+     * отклонённые при достижении лимита. Сами заявки читаются после фиксации через {@link #writeStatusUpdate}.
+     */
     RequestStatusUpdateResult updateRequestStatus(Long userId, Long eventId, @Valid RequestStatusUpdate updateRequest);
 
-    List<RequestDto> getUserRequests(Long userId);
+    /**
+     * Передаёт в sink заявки результата модерации, читая их порциями по ID: подтверждённые, затем отклонённые.
+     */
+    void writeStatusUpdate(RequestStatusUpdateResult result, RequestStatusUpdateSink sink);
+
+    List<RequestDto> getUserRequests(Long userId, Long afterId, Integer size);
+
+    void exportUserRequests(Long userId, Consumer<RequestDto> consumer);
 }
@@ -1,8 +1,9 @@
 package ru.practicum.explorewithme.request.service;
 
-import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.explorewithme.api.event.dto.EventFullDto;
@@ -10,19 +11,26 @@ import ru.practicum.explorewithme.api.request.dto.RequestDto;
 import ru.practicum.explorewithme.api.user.dto.UserDto;
 import ru.practicum.explorewithme.api.event.enums.EventState;
 import ru.practicum.explorewithme.request.client.event.EventClient;
-import ru.practicum.explorewithme.request.client.user.UserClient;
+import ru.practicum.explorewithme.api.user.cache.UserCache;
+import ru.practicum.explorewithme.api.event.cache.EventCache;
+import ru.practicum.explorewithme.request.dao.RequestCountRepository;
+import ru.practicum.explorewithme.request.dao.RequestJdbcRepository;
 import ru.practicum.explorewithme.request.dao.RequestRepository;
 import ru.practicum.explorewithme.request.dto.RequestStatusUpdate;
-import ru.practicum.explorewithme.request.dto.RequestStatusUpdateResult;
 import ru.practicum.explorewithme.api.request.enums.RequestStatus;
 import ru.practicum.explorewithme.request.error.exception.NotFoundException;
 import ru.practicum.explorewithme.request.error.exception.RuleViolationException;
 import ru.practicum.explorewithme.request.mapper.RequestMapper;
 import ru.practicum.explorewithme.request.model.Request;
 
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 @Service
 @Slf4j
@@ -30,55 +38,72 @@ import java.util.stream.Collectors;
 @Transactional
 public class RequestServiceImpl implements RequestService {
     private final RequestRepository requestRepository;
-    private final UserClient userClient;
+    private final RequestCountRepository requestCountRepository;
+    private final RequestJdbcRepository requestJdbcRepository;
+    private final UserCache userCache;
     private final EventClient eventClient;
+    private final EventCache eventCache;
     private final RequestMapper requestMapper;
-    private final EntityManager em;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public RequestDto createRequest(Long userId, Long eventId) {
         log.info("Creating participation request for user {} to event {}", userId, eventId);
 
-        UserDto userDto = getUserDtoOrThrow(userId);
-
-        EventFullDto eventDto = eventClient.getByIdAndState(eventId, null);
+        getUserDtoOrThrow(userId);
 
-        if (requestRepository.existsByRequesterIdAndEventId(userId, eventId)) {
-            throw new RuleViolationException("Participation request already exists for user " + userId + " to event " + eventId);
-        }
+        // Проверяются только поля самого события, поэтому подходит кэш; лимит проверяется в БД вместе со вставкой.
+        // Изменённое событие event-service сбрасывает из кэша, а отказ по состоянию или лимиту перепроверяется
+        // по свежему событию: кэш мог не успеть увидеть публикацию или увеличение лимита
+        EventFullDto eventDto = eventCache.getById(eventId);
 
         if (eventDto.getInitiator().getId().equals(userId)) {
             throw new RuleViolationException("Initiator cannot request participation in their own event");
         }
 
-        if (!eventDto.getState().equals(EventState.PUBLISHED.name())) {
-            throw new RuleViolationException("Cannot participate in unpublished event");
+        if (!isPublished(eventDto)) {
+            eventDto = eventCache.getFresh(eventId);
+            if (!isPublished(eventDto)) {
+                throw new RuleViolationException("Cannot participate in unpublished event");
+            }
         }
 
-        if (eventDto.getParticipantLimit() > 0) {
-            long confirmedRequests = requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED);
-            if (confirmedRequests >= eventDto.getParticipantLimit()) {
-                throw new RuleViolationException("Participant limit reached for event");
-            }
+        // Создание заявок идёт параллельно, но не во время модерации и сверки счётчиков события
+        requestCountRepository.lockEventShared(eventId);
+
+        // Пустой результат - дубликат или лимит; вставка по свежему событию повторяется только при лимите,
+        // до неё в транзакции ничего не изменено
+        Optional<RequestJdbcRepository.InsertedRequest> insertResult = insert(userId, eventId, eventDto);
+        if (insertResult.isEmpty() && !requestRepository.existsByRequesterIdAndEventId(userId, eventId)) {
+            insertResult = insert(userId, eventId, eventCache.getFresh(eventId));
+        }
+        RequestJdbcRepository.InsertedRequest inserted = insertResult
+                .orElseThrow(() -> requestRepository.existsByRequesterIdAndEventId(userId, eventId)
+                        ? new RuleViolationException("Participation request already exists for user " + userId + " to event " + eventId)
+                        : new RuleViolationException("Participant limit reached for event"));
+        if (!inserted.counted()) {
+            throw new RuleViolationException("Participant limit reached for event");
         }
 
-        Request request = new Request();
-        request.setEventId(eventDto.getId());
-        request.setRequesterId(userDto.getId());
+        if (inserted.request().getStatus() == RequestStatus.CONFIRMED) {
+            eventPublisher.publishEvent(new ConfirmedRequestsChanged(eventId));
+        }
+
+        return requestMapper.toRequestDto(inserted.request());
+    }
 
+    private Optional<RequestJdbcRepository.InsertedRequest> insert(Long userId, Long eventId, EventFullDto eventDto) {
+        RequestStatus status;
         if (eventDto.getParticipantLimit() == 0 || (eventDto.getRequestModeration() != null && !eventDto.getRequestModeration())) {
-            request.setStatus(RequestStatus.CONFIRMED);
+            status = RequestStatus.CONFIRMED;
         } else {
-            request.setStatus(RequestStatus.PENDING);
+            status = RequestStatus.PENDING;
         }
+        return requestJdbcRepository.insert(eventId, userId, status, eventDto.getParticipantLimit());
+    }
 
-        Request savedRequest = requestRepository.save(request);
-
-        // Явно перезагружаем из БД чтобы получить created
-        em.flush();
-        em.refresh(savedRequest);
-
-        return requestMapper.toRequestDto(savedRequest);
+    private static boolean isPublished(EventFullDto eventDto) {
+        return eventDto.getState().equals(EventState.PUBLISHED.name());
     }
 
     @Override
@@ -94,9 +119,18 @@ public class RequestServiceImpl implements RequestService {
             throw new RuleViolationException("Only pending or confirmed requests can be cancelled");
         }
 
+        requestCountRepository.lockEventShared(request.getEventId());
+
+        RequestStatus oldStatus = request.getStatus();
+        boolean wasConfirmed = oldStatus == RequestStatus.CONFIRMED;
         request.setStatus(RequestStatus.CANCELED);
 
         Request cancelledRequest = requestRepository.save(request);
+        requestCountRepository.add(request.getEventId(), Map.of(oldStatus, -1L, RequestStatus.CANCELED, 1L));
+
+        if (wasConfirmed) {
+            eventPublisher.publishEvent(new ConfirmedRequestsChanged(request.getEventId()));
+        }
 
         return requestMapper.toRequestDto(cancelledRequest);
     }
@@ -125,77 +159,89 @@ public class RequestServiceImpl implements RequestService {
             throw new RuleViolationException("Event does not require request moderation");
         }
 
-        long confirmedCount = requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED);
+        // Решения по заявкам одного события принимаются по очереди: иначе подтверждение, достигшее лимита,
+        // ждало бы заявок параллельного подтверждения при отклонении ожидающих, а то - счётчика (взаимная блокировка).
+        // Создание и отмена заявок берут её разделяемой до первого изменения и ждут окончания модерации
+        requestCountRepository.lockEvent(eventId);
 
-        List<Request> requestsToUpdate = requestRepository.findAllById(updateRequest.getRequestIds());
-
-        for (Request request : requestsToUpdate) {
-            if (!request.getEventId().equals(eventId)) {
-                throw new IllegalArgumentException("Request " + request.getId() + " does not belong to eventDto " + eventId);
-            }
-            if (request.getStatus() != RequestStatus.PENDING) {
-                throw new RuleViolationException("Request " + request.getId() + " must have status PENDING");
-            }
+        // Заявки меняются одним UPDATE ... RETURNING; не попавшие в него разбираются только при ошибке
+        Set<Long> requestIds = new HashSet<>(updateRequest.getRequestIds());
+        List<Request> updated = requestJdbcRepository.updatePendingStatus(eventId, requestIds, newStatus);
+        if (updated.size() < requestIds.size()) {
+            checkNotUpdated(eventId, requestIds, updated);
         }
 
-        if (newStatus == RequestStatus.CONFIRMED) {
-            if (confirmedCount + requestsToUpdate.size() > eventDto.getParticipantLimit()) {
-                throw new RuleViolationException("The participant limit has been reached");
-            }
+        // Заявки уже заблокированы этой транзакцией, как и при отмене, поэтому счётчик берётся после них;
+        // при превышении лимита транзакция откатывается вместе с изменением заявок
+        if (newStatus == RequestStatus.CONFIRMED && !requestCountRepository.addWithinLimit(
+                eventId, RequestStatus.CONFIRMED, updated.size(), eventDto.getParticipantLimit())) {
+            throw new RuleViolationException("The participant limit has been reached");
         }
 
-        List<Request> confirmedRequests = new ArrayList<>();
-        List<Request> rejectedRequests = new ArrayList<>();
-
-        for (Request request : requestsToUpdate) {
-            request.setStatus(newStatus);
+        // Запоминаются только ID: ответ пишется после фиксации, и медленный клиент не держит блокировки
+        LongStream.Builder confirmedIds = LongStream.builder();
+        LongStream.Builder rejectedIds = LongStream.builder();
+        long rejected = 0;
+        for (Request request : updated) {
             if (newStatus == RequestStatus.CONFIRMED) {
-                confirmedRequests.add(request);
+                confirmedIds.add(request.getId());
             } else {
-                rejectedRequests.add(request);
+                rejectedIds.add(request.getId());
+                rejected++;
             }
         }
 
-        requestRepository.saveAll(requestsToUpdate);
-
-        if (newStatus == RequestStatus.CONFIRMED && confirmedCount + confirmedRequests.size() >= eventDto.getParticipantLimit()) {
-            List<Request> pendingRequests = requestRepository.findByEventIdAndStatus(eventId, RequestStatus.PENDING);
-
-            List<Request> autoRejected = new ArrayList<>();
-            for (Request pendingRequest : pendingRequests) {
-                if (!updateRequest.getRequestIds().contains(pendingRequest.getId())) {
-                    pendingRequest.setStatus(RequestStatus.REJECTED);
-                    autoRejected.add(pendingRequest);
-                    rejectedRequests.add(pendingRequest);
-                }
-            }
-
-            if (!autoRejected.isEmpty()) {
-                requestRepository.saveAll(autoRejected);
-            }
+        if (newStatus == RequestStatus.CONFIRMED && !updated.isEmpty()) {
+            eventPublisher.publishEvent(new ConfirmedRequestsChanged(eventId));
         }
 
-        List<RequestDto> confirmedUpdates = confirmedRequests.stream()
-                .map(requestMapper::toRequestDto)
-                .toList();
+        // Строка счётчика подтверждённых заблокирована этой транзакцией, значение учитывает параллельные подтверждения
+        long autoRejected = 0;
+        if (newStatus == RequestStatus.CONFIRMED
+                && requestCountRepository.get(eventId, RequestStatus.CONFIRMED) >= eventDto.getParticipantLimit()) {
+            autoRejected = requestJdbcRepository.rejectAllPending(eventId, request -> rejectedIds.add(request.getId()));
+            rejected += autoRejected;
+        }
 
-        List<RequestDto> rejectedUpdates = rejectedRequests.stream()
-                .map(requestMapper::toRequestDto)
-                .toList();
+        // Счётчики PENDING и REJECTED меняются после заявок: отмена заявки блокирует заявку раньше счётчика,
+        // и обратный порядок здесь приводил бы к взаимной блокировке
+        requestCountRepository.add(eventId, Map.of(
+                RequestStatus.PENDING, -(updated.size() + autoRejected),
+                RequestStatus.REJECTED, rejected
+        ));
+
+        return new RequestStatusUpdateResult(
+                confirmedIds.build().sorted().toArray(),
+                rejectedIds.build().sorted().toArray()
+        );
+    }
 
-        return new RequestStatusUpdateResult(confirmedUpdates, rejectedUpdates);
+    @Override
+    @Transactional(readOnly = true)
+    public void writeStatusUpdate(RequestStatusUpdateResult result, RequestStatusUpdateSink sink) {
+        // Статус в ответе - назначенный модерацией, даже если заявку успели отменить после фиксации
+        requestJdbcRepository.findAllByIds(result.confirmedIds(), request -> {
+            request.setStatus(RequestStatus.CONFIRMED);
+            sink.confirmed(requestMapper.toRequestDto(request));
+        });
+        requestJdbcRepository.findAllByIds(result.rejectedIds(), request -> {
+            request.setStatus(RequestStatus.REJECTED);
+            sink.rejected(requestMapper.toRequestDto(request));
+        });
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<RequestDto> getEventRequests(Long userId, Long eventId) {
+    public List<RequestDto> getEventRequests(Long userId, Long eventId, Long afterId, Integer size) {
         log.info("Getting requests for event {} by user {}", eventId, userId);
 
         getUserDtoOrThrow(userId);
 
         eventClient.getByIdAndState(eventId, null);
 
-        List<Request> requests = requestRepository.findByEventId(eventId);
+        List<Request> requests = size == null
+                ? requestRepository.findByEventId(eventId)
+                : requestRepository.findByEventIdAndIdGreaterThanOrderByIdAsc(eventId, afterId, Limit.of(size));
 
         return requests.stream()
                 .map(requestMapper::toRequestDto)
@@ -204,20 +250,60 @@ public class RequestServiceImpl implements RequestService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<RequestDto> getUserRequests(Long userId) {
+    public void exportEventRequests(Long userId, Long eventId, Consumer<RequestDto> consumer) {
+        log.info("Exporting requests for event {} by user {}", eventId, userId);
+
+        getUserDtoOrThrow(userId);
+
+        eventClient.getByIdAndState(eventId, null);
+
+        requestJdbcRepository.streamByEventId(eventId, request -> consumer.accept(requestMapper.toRequestDto(request)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RequestDto> getUserRequests(Long userId, Long afterId, Integer size) {
         log.info("Getting all requests for user {}", userId);
 
         getUserDtoOrThrow(userId);
 
-        List<Request> requests = requestRepository.findByRequesterId(userId);
+        List<Request> requests = size == null
+                ? requestRepository.findByRequesterId(userId)
+                : requestRepository.findByRequesterIdAndIdGreaterThanOrderByIdAsc(userId, afterId, Limit.of(size));
 
         return requests.stream()
                 .map(requestMapper::toRequestDto)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUserRequests(Long userId, Consumer<RequestDto> consumer) {
+        log.info("Exporting all requests for user {}", userId);
+
+        getUserDtoOrThrow(userId);
+
+        requestJdbcRepository.streamByRequesterId(userId, request -> consumer.accept(requestMapper.toRequestDto(request)));
+    }
+
+    private void checkNotUpdated(Long eventId, Set<Long> requestIds, List<Request> updated) {
+        Set<Long> updatedIds = updated.stream()
+                .map(Request::getId)
+                .collect(Collectors.toSet());
+        // Отсутствующие заявки пропускаются, как и прежде
+        for (Request request : requestRepository.findAllById(requestIds)) {
+            if (updatedIds.contains(request.getId())) {
+                continue;
+            }
+            if (!request.getEventId().equals(eventId)) {
+                throw new IllegalArgumentException("Request " + request.getId() + " does not belong to eventDto " + eventId);
+            }
+            throw new RuleViolationException("Request " + request.getId() + " must have status PENDING");
+        }
+    }
+
     private UserDto getUserDtoOrThrow(Long userId) {
-        UserDto userDto = userClient.getUserById(userId);
+        UserDto userDto = userCache.getUserById(userId);
 
         if (userDto == null) {
             throw new NotFoundException("User with id=" + userId + " was not found");
@@ -0,0 +1,7 @@
+package ru.practicum.explorewithme.request.service;
+
+/**
+ * ID заявок, изменённых модерацией, по возрастанию; заявки для ответа читаются по ним после фиксации.
+ */
+public record RequestStatusUpdateResult(long[] confirmedIds, long[] rejectedIds) {
+}
@@ -0,0 +1,13 @@
+package ru.practicum.explorewithme.request.service;
+
+import ru.practicum.explorewithme.api.request.dto.RequestDto;
+
+/**
+ * Получатель результата модерации заявок. Подтверждённые заявки передаются раньше отклонённых.
+ */
+public interface RequestStatusUpdateSink {
+
+    void confirmed(RequestDto request);
+
+    void rejected(RequestDto request);
+}
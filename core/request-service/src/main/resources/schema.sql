@@ -9,6 +9,42 @@ CREATE TABLE IF NOT EXISTS requests (
 -- Indexes for better query performance
 DROP INDEX IF EXISTS idx_requests_event;
 DROP INDEX IF EXISTS idx_requests_event_requester;
+DROP INDEX IF EXISTS idx_requests_requester;
 
-CREATE INDEX idx_requests_event ON requests(event_id);
+-- Индексы (событие | автор заявки, id) обслуживают постраничную выборку по id и выгрузку без сортировки
+CREATE INDEX idx_requests_event ON requests(event_id, id);
+CREATE INDEX idx_requests_requester ON requests(requester_id, id);
 CREATE INDEX idx_requests_event_requester ON requests(event_id, requester_id);
+
+CREATE SEQUENCE IF NOT EXISTS request_counts_version_seq;
+
+-- Число заявок события в статусе; меняется в транзакции изменения заявок, сверяется RequestCountsReconciler.
+-- version растёт при каждом изменении строки: по нему event-service отбрасывает устаревшие значения
+CREATE TABLE IF NOT EXISTS request_counts (
+    event_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    count BIGINT NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (event_id, status)
+);
+
+ALTER TABLE request_counts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+
+-- Версия назначается после блокировки строки, поэтому для одной строки она растёт в порядке фиксации изменений
+CREATE OR REPLACE FUNCTION request_counts_next_version() RETURNS TRIGGER LANGUAGE plpgsql AS '
+BEGIN
+    NEW.version := nextval(''request_counts_version_seq'');
+    RETURN NEW;
+END
+';
+
+DROP TRIGGER IF EXISTS request_counts_version ON request_counts;
+CREATE TRIGGER request_counts_version BEFORE INSERT OR UPDATE ON request_counts
+    FOR EACH ROW EXECUTE FUNCTION request_counts_next_version();
+
+-- Строкам, созданным до появления версий, назначаются версии
+UPDATE request_counts SET version = nextval('request_counts_version_seq') WHERE version = 0;
+
+-- Периодическая сверка с event-service (ConfirmedRequestsSynchronizer) проходит подтверждённые заявки по event_id
+CREATE INDEX IF NOT EXISTS idx_request_counts_status_event ON request_counts(status, event_id);
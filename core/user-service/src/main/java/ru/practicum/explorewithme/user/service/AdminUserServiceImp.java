@@ -2,6 +2,7 @@ package ru.practicum.explorewithme.user.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -25,6 +26,7 @@ public class AdminUserServiceImp implements AdminUserService {
 
     private final UserRepository repository;
     private final UserMapper mapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public UserDto create(NewUserRequest newUserRequest) {
@@ -43,6 +45,7 @@ public class AdminUserServiceImp implements AdminUserService {
             throw new NotFoundException("user with id " + userId + " not found");
         }
         repository.deleteById(userId);
+        eventPublisher.publishEvent(new UserDeleted(userId));
     }
 
     @Override
@@ -0,0 +1,63 @@
+package ru.practicum.explorewithme.user.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.RestClient;
+import ru.practicum.explorewithme.api.user.service.UserCacheApi;
+
+import java.util.List;
+
+/**
+ * После удаления пользователя сбрасывает его запись в кэшах пользователей всех экземпляров сервисов-потребителей.
+ * Сброс необязателен: если экземпляр недоступен, запись устареет не дольше ttl его кэша.
+ */
+@Slf4j
+@Component
+public class UserCacheInvalidator {
+
+    private final DiscoveryClient discoveryClient;
+    private final RestClient restClient;
+    private final boolean enabled;
+    private final List<String> services;
+
+    public UserCacheInvalidator(
+            DiscoveryClient discoveryClient,
+            @Value("${ru.practicum.explorewithme.cache.users.invalidation.enabled:false}") boolean enabled,
+            @Value("${ru.practicum.explorewithme.cache.users.invalidation.services:event-service,request-service,comment-service}")
+            List<String> services,
+            @Value("${ru.practicum.explorewithme.cache.users.invalidation.timeoutMs:1000}") int timeoutMs
+    ) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        this.discoveryClient = discoveryClient;
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+        this.enabled = enabled;
+        this.services = services;
+    }
+
+    @TransactionalEventListener
+    public void onUserDeleted(UserDeleted deleted) {
+        if (!enabled) {
+            return;
+        }
+        for (String service : services) {
+            for (ServiceInstance instance : discoveryClient.getInstances(service)) {
+                try {
+                    restClient.delete()
+                            .uri(instance.getUri() + UserCacheApi.URL + "/{userId}", deleted.userId())
+                            .retrieve()
+                            .toBodilessEntity();
+                } catch (RuntimeException e) {
+                    log.warn("Не удалось сбросить пользователя {} в кэше {} ({}): {}",
+                            deleted.userId(), service, instance.getUri(), e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.explorewithme.user.service;
+
+/**
+ * Пользователь удалён.
+ */
+public record UserDeleted(Long userId) {
+}
@@ -0,0 +1,16 @@
+package ru.practicum.infra.gatewayserver.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+
+/**
+ * Закэшированный ответ 200 OK: заголовки без hop-by-hop, тело и срок хранения.
+ */
+record CachedResponse(String routeId, String path, HttpHeaders headers, byte[] body,
+                      long createdNanos, Duration ttl) {
+
+    long ageSeconds() {
+        return Duration.ofNanos(System.nanoTime() - createdNanos).toSeconds();
+    }
+}
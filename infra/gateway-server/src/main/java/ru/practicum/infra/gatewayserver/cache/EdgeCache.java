@@ -0,0 +1,114 @@
+package ru.practicum.infra.gatewayserver.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Хранилище кэша ответов gateway. Размер ограничен суммарным объёмом тел, каждая запись живёт свой ttl.
+ * <p>
+ * Промахи по одному ключу объединяются: первый запрос идёт в сервис, остальные ждут его ответ
+ * (см. {@link #join(String, CompletableFuture)}).
+ */
+@Component
+public class EdgeCache {
+
+    private final Cache<String, CachedResponse> cache;
+    private final Map<String, CompletableFuture<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final int maxEntryBytes;
+
+    public EdgeCache(
+            MeterRegistry meterRegistry,
+            @Value("${ru.practicum.explorewithme.cache.edge.maxSizeBytes:67108864}") long maxSizeBytes,
+            @Value("${ru.practicum.explorewithme.cache.edge.maxEntryBytes:1048576}") int maxEntryBytes
+    ) {
+        this.maxEntryBytes = maxEntryBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .weigher((String key, CachedResponse response) -> key.length() + response.body().length)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+                        return response.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse response, long currentTime,
+                                                  long currentDuration) {
+                        return response.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse response, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "edgeResponses");
+    }
+
+    public CachedResponse get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Регистрирует загрузку ключа. Возвращает null, если вызывающий стал ведущим и должен сам сходить
+     * в сервис и завершить loading, иначе - загрузку ведущего, которую нужно дождаться.
+     */
+    public CompletableFuture<CachedResponse> join(String key, CompletableFuture<CachedResponse> loading) {
+        return inFlight.putIfAbsent(key, loading);
+    }
+
+    /**
+     * Завершает загрузку ведущего: сохраняет ответ, если он есть, и будит ожидающих.
+     * Без ответа ожидающие идут в сервис сами.
+     */
+    public void complete(String key, CompletableFuture<CachedResponse> loading, CachedResponse response) {
+        if (response != null) {
+            cache.put(key, response);
+        }
+        inFlight.remove(key, loading);
+        loading.complete(response);
+    }
+
+    public boolean fits(long bytes) {
+        return bytes <= maxEntryBytes;
+    }
+
+    /**
+     * Удаляет записи маршрута (или всех маршрутов при null), путь которых начинается с prefix (любой при null).
+     *
+     * @return число удалённых записей
+     */
+    public int purge(String routeId, String prefix) {
+        int purged = 0;
+        for (Map.Entry<String, CachedResponse> entry : cache.asMap().entrySet()) {
+            CachedResponse response = entry.getValue();
+            if ((routeId == null || routeId.equals(response.routeId()))
+                    && (prefix == null || response.path().startsWith(prefix))
+                    && cache.asMap().remove(entry.getKey(), response)) {
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "entries", cache.estimatedSize(),
+                "bytes", cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L),
+                "hitRate", cache.stats().hitRate(),
+                "inFlight", inFlight.size()
+        );
+    }
+}
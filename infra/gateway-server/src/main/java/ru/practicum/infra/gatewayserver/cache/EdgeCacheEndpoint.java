@@ -0,0 +1,35 @@
+package ru.practicum.infra.gatewayserver.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Управление кэшем ответов gateway: GET /actuator/edgecache - статистика,
+ * DELETE /actuator/edgecache?route=...&prefix=... - сброс записей маршрута и/или пути.
+ * Доступно только на порту management.server.port, закрытом от внешнего трафика.
+ */
+@Component
+@Endpoint(id = "edgecache")
+public class EdgeCacheEndpoint {
+
+    private final EdgeCache edgeCache;
+
+    public EdgeCacheEndpoint(EdgeCache edgeCache) {
+        this.edgeCache = edgeCache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return edgeCache.stats();
+    }
+
+    @DeleteOperation
+    public Map<String, Object> purge(@Nullable String route, @Nullable String prefix) {
+        return Map.of("purged", edgeCache.purge(route, prefix));
+    }
+}
@@ -0,0 +1,271 @@
+package ru.practicum.infra.gatewayserver.cache;
+
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriUtils;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Кэш ответов на GET-запросы маршрута. Подключается фильтром маршрута:
+ * <pre>
+ * filters:
+ *   - name: EdgeCache
+ *     args:
+ *       ttlSeconds: 30
+ * </pre>
+ * Ключ - id маршрута, нормализованный путь и параметры запроса, отсортированные по имени.
+ * Кэшируются только ответы 200 OK, которые сервис разрешил хранить общим кэшам: без no-store, private,
+ * no-cache и Set-Cookie. Срок хранения - s-maxage или max-age ответа, но не больше ttlSeconds маршрута;
+ * без Cache-Control ответ хранится ttlSeconds.
+ * <p>
+ * Одновременные промахи по одному ключу объединяются: в сервис идёт один запрос, остальные получают его ответ.
+ * If-None-Match при попадании в кэш проверяется здесь же.
+ */
+@Component
+public class EdgeCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<EdgeCacheGatewayFilterFactory.Config> {
+
+    private static final Logger log = LoggerFactory.getLogger(EdgeCacheGatewayFilterFactory.class);
+
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+    private static final Pattern MAX_AGE = Pattern.compile("(?:^|,)\\s*(s-maxage|max-age)\\s*=\\s*(\\d+)");
+    private static final Set<String> UNCACHEABLE_DIRECTIVES = Set.of("no-store", "private", "no-cache");
+    private static final List<String> STORED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.CONTENT_LANGUAGE,
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.ETAG,
+            HttpHeaders.LAST_MODIFIED,
+            HttpHeaders.VARY
+    );
+
+    private final EdgeCache edgeCache;
+
+    public EdgeCacheGatewayFilterFactory(EdgeCache edgeCache) {
+        super(Config.class);
+        this.edgeCache = edgeCache;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttlSeconds");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        Duration maxTtl = Duration.ofSeconds(config.getTtlSeconds());
+        // Ответ перехватывается до NettyWriteResponseFilter, который пишет тело ответа сервиса клиенту
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (!HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+                return chain.filter(exchange);
+            }
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route == null ? "" : route.getId();
+            String path = normalizePath(exchange.getRequest().getPath().value());
+            String key = routeId + " " + path + normalizeQuery(exchange.getRequest().getQueryParams());
+
+            CachedResponse cached = edgeCache.get(key);
+            if (cached != null) {
+                return writeCached(exchange, cached);
+            }
+
+            CompletableFuture<CachedResponse> loading = new CompletableFuture<>();
+            CompletableFuture<CachedResponse> leader = edgeCache.join(key, loading);
+            if (leader != null) {
+                return Mono.fromFuture(leader.thenApply(Optional::ofNullable))
+                        .flatMap(response -> response.isPresent()
+                                ? writeCached(exchange, response.get())
+                                : chain.filter(exchange));
+            }
+
+            CachingResponse response = new CachingResponse(exchange.getResponse(), routeId, path, maxTtl);
+            response.getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+            return chain.filter(exchange.mutate().response(response).build())
+                    .doFinally(signal -> edgeCache.complete(key, loading, response.stored));
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.addAll(cached.headers());
+        headers.set(HttpHeaders.AGE, String.valueOf(cached.ageSeconds()));
+        headers.set(CACHE_STATUS_HEADER, "HIT");
+
+        String etag = cached.headers().getETag();
+        if (etag != null && notModified(request.getHeaders().getIfNoneMatch(), etag)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static boolean notModified(List<String> ifNoneMatch, String etag) {
+        String strong = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String tag : ifNoneMatch) {
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(strong)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Схлопывает повторные слэши и убирает завершающий: /events//1/ и /events/1 - один ключ.
+     */
+    static String normalizePath(String path) {
+        String normalized = path.replaceAll("/{2,}", "/");
+        if (normalized.length() > 1 && normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+
+    /**
+     * Параметры в порядке имён, значения одного параметра - в исходном порядке. Параметры запроса уже
+     * декодированы, поэтому %41 и A дают один ключ.
+     */
+    static String normalizeQuery(MultiValueMap<String, String> params) {
+        if (params.isEmpty()) {
+            return "";
+        }
+        StringJoiner query = new StringJoiner("&", "?", "");
+        new TreeMap<>(params).forEach((name, values) -> {
+            for (String value : values) {
+                query.add(UriUtils.encode(name, StandardCharsets.UTF_8) + "="
+                        + UriUtils.encode(value == null ? "" : value, StandardCharsets.UTF_8));
+            }
+        });
+        return query.toString();
+    }
+
+    /**
+     * Срок хранения по Cache-Control ответа, не больше maxTtl; null, если ответ нельзя хранить в общем кэше.
+     */
+    static Duration storeTtl(HttpHeaders headers, Duration maxTtl) {
+        if (headers.containsKey(HttpHeaders.SET_COOKIE) || headers.getVary().contains("*")) {
+            return null;
+        }
+        String cacheControl = String.join(",", headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)).toLowerCase();
+        if (cacheControl.isBlank()) {
+            return maxTtl;
+        }
+        for (String directive : cacheControl.split(",")) {
+            if (UNCACHEABLE_DIRECTIVES.contains(directive.trim())) {
+                return null;
+            }
+        }
+
+        Long maxAge = null;
+        Long sharedMaxAge = null;
+        Matcher matcher = MAX_AGE.matcher(cacheControl);
+        while (matcher.find()) {
+            long seconds = Long.parseLong(matcher.group(2));
+            if (matcher.group(1).equals("s-maxage")) {
+                sharedMaxAge = seconds;
+            } else {
+                maxAge = seconds;
+            }
+        }
+        Long seconds = sharedMaxAge != null ? sharedMaxAge : maxAge;
+        if (seconds == null) {
+            return maxTtl;
+        }
+        Duration ttl = Duration.ofSeconds(seconds);
+        return ttl.compareTo(maxTtl) < 0 ? ttl : maxTtl;
+    }
+
+    /**
+     * Пропускает тело ответа сервиса клиенту и сохраняет его копию, если ответ можно кэшировать.
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final String routeId;
+        private final String path;
+        private final Duration maxTtl;
+        private volatile CachedResponse stored;
+
+        CachingResponse(ServerHttpResponse delegate, String routeId, String path, Duration maxTtl) {
+            super(delegate);
+            this.routeId = routeId;
+            this.path = path;
+            this.maxTtl = maxTtl;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            Duration ttl = HttpStatus.OK.equals(getStatusCode()) ? storeTtl(getHeaders(), maxTtl) : null;
+            long contentLength = getHeaders().getContentLength();
+            if (ttl == null || ttl.isZero() || (contentLength >= 0 && !edgeCache.fits(contentLength))) {
+                return super.writeWith(body);
+            }
+
+            return DataBufferUtils.join(body).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+
+                if (edgeCache.fits(bytes.length)) {
+                    HttpHeaders headers = new HttpHeaders();
+                    STORED_HEADERS.forEach(name -> {
+                        List<String> values = getHeaders().get(name);
+                        if (values != null) {
+                            headers.put(name, values);
+                        }
+                    });
+                    stored = new CachedResponse(routeId, path, HttpHeaders.readOnlyHttpHeaders(headers), bytes,
+                            System.nanoTime(), ttl);
+                    log.debug("Ответ {} {} сохранён в кэше на {}", routeId, path, ttl);
+                }
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+    }
+
+    public static class Config {
+        /**
+         * Срок хранения ответа без Cache-Control и верхняя граница для max-age/s-maxage сервиса.
+         */
+        private long ttlSeconds = 10;
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.practicum.StatsDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Локальный буфер хитов: поток запроса только кладёт хит в ограниченную очередь,
+ * фоновый отправитель забирает их пакетами по batchSize или по истечении flushInterval.
+ * Между пакетами отправитель выполняет фоновую задачу (досылку отложенных хитов).
+ */
+class HitBuffer {
+    private static final Logger log = LoggerFactory.getLogger(HitBuffer.class);
+
+    private final Consumer<List<StatsDto>> sender;
+    private final Runnable idleTask;
+    private final BlockingQueue<StatsDto> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long shutdownTimeoutMs;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    HitBuffer(Consumer<List<StatsDto>> sender, Runnable idleTask, int capacity, int batchSize,
+              long flushIntervalMs, long shutdownTimeoutMs) {
+        this.sender = sender;
+        this.idleTask = idleTask;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+    }
+
+    /**
+     * @return false, если буфер заполнен или остановлен и хит не принят
+     */
+    boolean offer(StatsDto hit) {
+        return running && queue.offer(hit);
+    }
+
+    void start() {
+        running = true;
+        worker = Thread.ofPlatform()
+                .name("stats-client-sender")
+                .daemon(true)
+                .start(this::sendLoop);
+    }
+
+    void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            worker.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Буфер хитов не отправлен полностью при остановке, осталось {}", queue.size());
+        }
+    }
+
+    private void sendLoop() {
+        List<StatsDto> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                StatsDto first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    runIdleTask();
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    StatsDto next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                // При остановке добираем всё, что успели положить последние запросы
+                if (!running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                send(batch);
+                return;
+            }
+            send(batch);
+            runIdleTask();
+        }
+    }
+
+    private void runIdleTask() {
+        try {
+            idleTask.run();
+        } catch (Exception e) {
+            log.warn("Ошибка фоновой задачи буфера хитов: {}", e.getMessage());
+        }
+    }
+
+    private void send(List<StatsDto> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            sender.accept(List.copyOf(batch));
+        } catch (Exception e) {
+            log.warn("Не удалось отправить пакет из {} хитов в сервис статистики: {}", batch.size(), e.getMessage());
+        } finally {
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package ru.practicum.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ограниченный append-only файл хитов (по одной JSON-строке на хит), куда хиты откладываются,
+ * пока сервис статистики недоступен. Чтение идёт строго с начала файла, позиция уже отправленных
+ * строк хранится рядом в файле *.offset, чтобы после перезапуска не отправлять их повторно.
+ * <p>
+ * Блокировка удерживается только на время работы с диском, отправка по сети выполняется без неё.
+ */
+class HitSpillFile {
+    private static final Logger log = LoggerFactory.getLogger(HitSpillFile.class);
+
+    private static final int READ_CHUNK_BYTES = 256 * 1024;
+
+    private final Path path;
+    private final Path offsetPath;
+    private final long maxBytes;
+
+    private FileChannel channel;
+    private long offset;
+    private boolean full;
+
+    HitSpillFile(Path path, long maxBytes) {
+        this.path = path;
+        this.offsetPath = path.resolveSibling(path.getFileName() + ".offset");
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized void open() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        offset = readOffset();
+        if (offset > channel.size()) {
+            offset = 0;
+        }
+        if (hasPending()) {
+            log.info("Найдены неотправленные хиты в {}: {} байт", path, channel.size() - offset);
+        }
+    }
+
+    synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(true);
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Ошибка закрытия файла хитов {}: {}", path, e.getMessage());
+        }
+        channel = null;
+    }
+
+    synchronized boolean hasPending() {
+        try {
+            return channel != null && channel.size() > offset;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Дописывает строки в конец файла.
+     *
+     * @return false, если файл недоступен или достиг maxBytes и строки отброшены
+     */
+    synchronized boolean append(List<String> lines) {
+        if (channel == null || lines.isEmpty()) {
+            return false;
+        }
+        StringBuilder sb = new StringBuilder();
+        lines.forEach(line -> sb.append(line).append('\n'));
+        ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            long size = channel.size();
+            if (size + buffer.remaining() > maxBytes) {
+                if (!full) {
+                    log.warn("Файл хитов {} заполнен ({} байт), новые хиты отбрасываются", path, size);
+                    full = true;
+                }
+                return false;
+            }
+            channel.position(size);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            return true;
+        } catch (IOException e) {
+            log.warn("Ошибка записи в файл хитов {}: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Читает до maxLines строк, следующих за уже отправленными. Позиция не сдвигается,
+     * пока не будет вызван {@link #commit(Chunk)}.
+     */
+    synchronized Chunk read(int maxLines) throws IOException {
+        List<String> lines = new ArrayList<>();
+        long position = offset;
+        long size = channel == null ? 0 : channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_CHUNK_BYTES);
+        byte[] tail = new byte[0];
+        while (lines.size() < maxLines && position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position + tail.length);
+            if (read <= 0) {
+                break;
+            }
+            byte[] bytes = new byte[tail.length + read];
+            System.arraycopy(tail, 0, bytes, 0, tail.length);
+            buffer.flip();
+            buffer.get(bytes, tail.length, read);
+
+            int start = 0;
+            for (int i = 0; i < bytes.length && lines.size() < maxLines; i++) {
+                if (bytes[i] == '\n') {
+                    if (i > start) {
+                        lines.add(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+                    }
+                    start = i + 1;
+                }
+            }
+            position += start;
+            tail = new byte[bytes.length - start];
+            System.arraycopy(bytes, start, tail, 0, tail.length);
+            if (position + tail.length >= size) {
+                break;
+            }
+        }
+        return new Chunk(lines, position);
+    }
+
+    /**
+     * Отмечает строки прочитанного фрагмента как отправленные. Когда отправлено всё,
+     * файл обнуляется.
+     */
+    synchronized void commit(Chunk chunk) throws IOException {
+        offset = chunk.end();
+        if (offset >= channel.size()) {
+            channel.truncate(0);
+            offset = 0;
+            full = false;
+            Files.deleteIfExists(offsetPath);
+            log.info("Все отложенные хиты из {} отправлены", path);
+        } else {
+            Files.writeString(offsetPath, Long.toString(offset));
+        }
+    }
+
+    private long readOffset() {
+        try {
+            return Files.exists(offsetPath) ? Long.parseLong(Files.readString(offsetPath).trim()) : 0;
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Не удалось прочитать позицию файла хитов {}, чтение начнётся с начала", offsetPath);
+            return 0;
+        }
+    }
+
+    record Chunk(List<String> lines, long end) {
+        boolean isEmpty() {
+            return lines.isEmpty();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.client;
 
 import ru.practicum.StatsDto;
 import ru.practicum.StatsParams;
+import ru.practicum.StatsQuery;
 import ru.practicum.StatsView;
 
 import java.util.List;
@@ -10,6 +11,11 @@ public interface StatsClient {
 
     void hit(StatsDto statsDto);
 
+    void hitAll(List<StatsDto> statsDtos);
+
     List<StatsView> getStats(StatsParams statsParams);
 
+    // То же, что getStats, но URI и id событий передаются в теле запроса: для больших списков
+    List<StatsView> query(StatsQuery statsQuery);
+
 }
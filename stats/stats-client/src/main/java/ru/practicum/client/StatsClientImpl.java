@@ -1,60 +1,225 @@
 package ru.practicum.client;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.UriComponentsBuilder;
 import ru.practicum.StatsDto;
 import ru.practicum.StatsParams;
+import ru.practicum.StatsQuery;
 import ru.practicum.StatsView;
 import ru.practicum.client.config.StatsService;
 import ru.practicum.client.exception.StatsClientException;
+import ru.practicum.client.exception.StatsServerUnavailable;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
 public class StatsClientImpl implements StatsClient {
+    private static final Logger log = LoggerFactory.getLogger(StatsClientImpl.class);
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String SMILE_CONTENT_TYPE = "application/x-jackson-smile";
 
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
     private final ObjectMapper objectMapper;
+    private final ObjectMapper smileMapper;
     private final StatsService statsService;
 
-    public StatsClientImpl(ObjectMapper objectMapper, StatsService statsService) {
+    // batch - хиты копятся в локальном буфере и отправляются пакетами фоновым потоком,
+    // sync - каждый хит отправляется отдельным запросом в потоке вызывающего
+    private final boolean batchEnabled;
+    private final int batchSize;
+    private final Duration requestTimeout;
+    private final long retryIntervalMs;
+    // Значение approximate для запросов unique=true, в которых оно не задано явно
+    private final boolean approximateUnique;
+    private final HitBuffer hitBuffer;
+    // Хиты, которые не удалось отправить, досылаются из файла в порядке поступления
+    private final HitSpillFile spillFile;
+
+    private volatile long nextReplayAt;
+
+    public StatsClientImpl(
+            ObjectMapper objectMapper,
+            StatsService statsService,
+            @Value("${ru.practicum.explorewithme.stats.client.mode:sync}") String mode,
+            @Value("${ru.practicum.explorewithme.stats.client.bufferCapacity:10000}") int bufferCapacity,
+            @Value("${ru.practicum.explorewithme.stats.client.batchSize:200}") int batchSize,
+            @Value("${ru.practicum.explorewithme.stats.client.flushIntervalMs:500}") long flushIntervalMs,
+            @Value("${ru.practicum.explorewithme.stats.client.shutdownTimeoutMs:10000}") long shutdownTimeoutMs,
+            @Value("${ru.practicum.explorewithme.stats.client.requestTimeoutMs:3000}") long requestTimeoutMs,
+            @Value("${ru.practicum.explorewithme.stats.client.spill.path:${java.io.tmpdir}/stats-client/${spring.application.name:app}-hits.ndjson}") String spillPath,
+            @Value("${ru.practicum.explorewithme.stats.client.spill.maxBytes:67108864}") long spillMaxBytes,
+            @Value("${ru.practicum.explorewithme.stats.client.spill.retryIntervalMs:5000}") long retryIntervalMs,
+            @Value("${ru.practicum.explorewithme.stats.client.approximateUnique:false}") boolean approximateUnique
+    ) {
         this.objectMapper = objectMapper;
+        this.smileMapper = objectMapper.copyWith(new SmileFactory());
         this.statsService = statsService;
+        this.batchEnabled = "batch".equalsIgnoreCase(mode);
+        this.batchSize = batchSize;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.retryIntervalMs = retryIntervalMs;
+        this.approximateUnique = approximateUnique;
+        this.hitBuffer = new HitBuffer(this::hitAll, this::replaySpilled,
+                bufferCapacity, batchSize, flushIntervalMs, shutdownTimeoutMs);
+        this.spillFile = new HitSpillFile(Path.of(spillPath), spillMaxBytes);
     }
 
+    @PostConstruct
+    void start() {
+        try {
+            spillFile.open();
+        } catch (IOException e) {
+            log.warn("Файл отложенных хитов недоступен, при недоступности сервиса статистики хиты будут теряться: {}",
+                    e.getMessage());
+        }
+        // Фоновый поток нужен и в режиме sync: он досылает отложенные хиты
+        hitBuffer.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        hitBuffer.stop();
+        spillFile.close();
+    }
+
+    /**
+     * Не бросает исключений и не ждёт сервис статистики дольше requestTimeout:
+     * при его недоступности хит откладывается в файл.
+     */
     @Override
     public void hit(StatsDto statsDto) {
+        if (batchEnabled) {
+            if (!hitBuffer.offer(statsDto)) {
+                log.debug("Буфер хитов заполнен, хит откладывается в файл: {}", statsDto.getUri());
+                spill(List.of(statsDto));
+            }
+            return;
+        }
+        hitAll(List.of(statsDto));
+    }
+
+    @Override
+    public void hitAll(List<StatsDto> statsDtos) {
+        if (statsDtos.isEmpty()) {
+            return;
+        }
+        // Пока есть отложенные хиты, новые встают за ними, чтобы сохранить порядок
+        if (spillFile.hasPending()) {
+            spill(statsDtos);
+            return;
+        }
         try {
-            String requestBody = objectMapper.writeValueAsString(statsDto);
+            sendHits(objectMapper.writeValueAsString(statsDtos));
+        } catch (StatsServerUnavailable e) {
+            log.warn("Сервис статистики недоступен, {} хитов отложено: {}", statsDtos.size(), e.getMessage());
+            nextReplayAt = System.currentTimeMillis() + retryIntervalMs;
+            spill(statsDtos);
+        } catch (Exception e) {
+            log.warn("Хиты отклонены сервисом статистики и не будут сохранены: {}", e.getMessage());
+        }
+    }
+
+    private void spill(List<StatsDto> statsDtos) {
+        List<String> lines = new ArrayList<>(statsDtos.size());
+        for (StatsDto statsDto : statsDtos) {
+            try {
+                lines.add(objectMapper.writeValueAsString(statsDto));
+            } catch (JsonProcessingException e) {
+                log.warn("Не удалось сериализовать хит {}: {}", statsDto, e.getMessage());
+            }
+        }
+        if (!spillFile.append(lines)) {
+            log.debug("Хиты потеряны: {}", lines.size());
+        }
+    }
+
+    private void replaySpilled() {
+        if (!spillFile.hasPending() || System.currentTimeMillis() < nextReplayAt) {
+            return;
+        }
+        try {
+            HitSpillFile.Chunk chunk = spillFile.read(batchSize);
+            while (!chunk.isEmpty()) {
+                try {
+                    sendHits("[" + String.join(",", chunk.lines()) + "]");
+                } catch (StatsClientException e) {
+                    log.warn("Отложенные хиты отклонены сервисом статистики и пропущены: {}", e.getMessage());
+                }
+                spillFile.commit(chunk);
+                chunk = spillFile.read(batchSize);
+            }
+        } catch (StatsServerUnavailable e) {
+            log.debug("Сервис статистики всё ещё недоступен: {}", e.getMessage());
+            nextReplayAt = System.currentTimeMillis() + retryIntervalMs;
+        } catch (IOException e) {
+            log.warn("Ошибка чтения файла отложенных хитов: {}", e.getMessage());
+            nextReplayAt = System.currentTimeMillis() + retryIntervalMs;
+        }
+    }
 
+    /**
+     * @throws StatsServerUnavailable если сервис не найден, не отвечает или вернул 5xx - хиты стоит повторить
+     * @throws StatsClientException   если сервис отклонил хиты (4xx) - повтор не поможет
+     */
+    private void sendHits(String requestBody) {
+        HttpResponse<Void> response;
+        try {
             HttpRequest request = HttpRequest.newBuilder()
-                    .uri(statsService.makeUri("/hit"))
+                    .uri(statsService.makeUriWithoutRetry("/hits"))
+                    .timeout(requestTimeout)
                     .header("Content-Type", "application/json")
                     .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                     .build();
 
-            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
-
-            if (response.statusCode() >= 400) {
-                throw new StatsClientException("Failed to send hit: " + response.statusCode());
-            }
+            response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (StatsServerUnavailable e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StatsServerUnavailable("Failed to send hits", e);
         } catch (Exception e) {
-            throw new StatsClientException("Failed to send hit", e);
+            throw new StatsServerUnavailable("Failed to send hits", e);
+        }
+
+        if (response.statusCode() >= 500) {
+            throw new StatsServerUnavailable("Failed to send hits: " + response.statusCode());
+        }
+        if (response.statusCode() >= 400) {
+            throw new StatsClientException("Failed to send hits: " + response.statusCode());
         }
     }
 
+    /**
+     * Без повторов обнаружения и не дольше requestTimeout до ответа: при недоступности сервиса статистики
+     * вызывающий сразу получает StatsClientException и подставляет запасное значение.
+     */
     @Override
     public List<StatsView> getStats(StatsParams statsParams) {
         try {
-            String uriStr = statsService.makeUri("/stats").toString();
+            String uriStr = statsService.makeUriWithoutRetry("/stats").toString();
             UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(uriStr)
                     .queryParam("start", encodeDateTime(statsParams.getStart()))
                     .queryParam("end", encodeDateTime(statsParams.getEnd()));
@@ -67,25 +232,79 @@ public class StatsClientImpl implements StatsClient {
                 uriBuilder.queryParam("unique", statsParams.getUnique());
             }
 
+            if (isApproximate(statsParams.getApproximate(), statsParams.getUnique())) {
+                uriBuilder.queryParam("approximate", true);
+            }
+
             HttpRequest request = HttpRequest.newBuilder()
                     .uri(URI.create(uriBuilder.toUriString()))
-                    .header("Content-Type", "application/json")
+                    .timeout(requestTimeout)
+                    .header("Accept", SMILE_CONTENT_TYPE + ", application/json;q=0.9")
                     .GET()
                     .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+            return readStatsViews(response);
+        } catch (StatsClientException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new StatsClientException("Failed to get stats", e);
+        }
+    }
+
+    @Override
+    public List<StatsView> query(StatsQuery statsQuery) {
+        try {
+            StatsQuery body = statsQuery.toBuilder()
+                    .approximate(isApproximate(statsQuery.getApproximate(), statsQuery.getUnique()) ? true : null)
+                    .build();
+
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(statsService.makeUriWithoutRetry("/stats/query"))
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .header("Accept", SMILE_CONTENT_TYPE + ", application/json;q=0.9")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+            return readStatsViews(response);
+        } catch (StatsClientException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new StatsClientException("Failed to query stats", e);
+        }
+    }
 
+    private boolean isApproximate(Boolean approximate, Boolean unique) {
+        return approximate != null ? approximate : approximateUnique && Boolean.TRUE.equals(unique);
+    }
+
+    // Ответ читается из потока поэлементно, не собирая всё тело в памяти целиком.
+    // Smile, если сервер его поддерживает, иначе JSON
+    private List<StatsView> readStatsViews(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream body = response.body()) {
             if (response.statusCode() >= 400) {
                 throw new StatsClientException("Failed to get stats: " + response.statusCode());
             }
 
-            return objectMapper.readValue(
-                    response.body(),
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, StatsView.class)
-            );
-        } catch (Exception e) {
-            throw new StatsClientException("Failed to get stats", e);
+            boolean smile = response.headers().firstValue("Content-Type")
+                    .map(contentType -> contentType.startsWith(SMILE_CONTENT_TYPE))
+                    .orElse(false);
+            return decodeStatsViews((smile ? smileMapper : objectMapper).readerFor(StatsView.class), body);
+        }
+    }
+
+    static List<StatsView> decodeStatsViews(ObjectReader reader, InputStream body) throws IOException {
+        List<StatsView> statsViews = new ArrayList<>();
+        try (MappingIterator<StatsView> iterator = reader.readValues(body)) {
+            while (iterator.hasNextValue()) {
+                statsViews.add(iterator.nextValue());
+            }
         }
+        return statsViews;
     }
 
     private String encodeDateTime(LocalDateTime dateTime) {
@@ -26,14 +26,23 @@ public class StatsService {
     }
 
     public URI makeUri(String path) {
-        ServiceInstance instance = retryTemplate.execute(cxt -> getInstance());
-        return URI.create("http://" + instance.getHost() + ":" + instance.getPort() + path);
+        return toUri(retryTemplate.execute(cxt -> getInstance()), path);
+    }
+
+    // Без повторов: для чтения статистики, у которого есть запасное значение, и для фоновой отправки хитов,
+    // которая сама повторит попытку позже
+    public URI makeUriWithoutRetry(String path) {
+        return toUri(getInstance(), path);
     }
 
     public URI makeUri() {
         return this.makeUri("");
     }
 
+    private static URI toUri(ServiceInstance instance, String path) {
+        return URI.create("http://" + instance.getHost() + ":" + instance.getPort() + path);
+    }
+
     private ServiceInstance getInstance() {
         try {
             return discoveryClient
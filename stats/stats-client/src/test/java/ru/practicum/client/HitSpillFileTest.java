@@ -0,0 +1,139 @@
+package ru.practicum.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HitSpillFileTest {
+
+    @TempDir
+    Path dir;
+
+    private HitSpillFile spillFile;
+
+    @AfterEach
+    void tearDown() {
+        if (spillFile != null) {
+            spillFile.close();
+        }
+    }
+
+    @Test
+    void read_shouldReturnAppendedLinesInOrder() throws IOException {
+        spillFile = open(1024);
+
+        assertThat(spillFile.append(List.of("{\"n\":1}", "{\"n\":2}"))).isTrue();
+        assertThat(spillFile.append(List.of("{\"n\":3}"))).isTrue();
+
+        HitSpillFile.Chunk chunk = spillFile.read(10);
+
+        assertThat(chunk.lines()).containsExactly("{\"n\":1}", "{\"n\":2}", "{\"n\":3}");
+        assertThat(spillFile.hasPending()).isTrue();
+    }
+
+    @Test
+    void read_shouldNotMovePositionUntilCommit() throws IOException {
+        spillFile = open(1024);
+        spillFile.append(List.of("a", "b"));
+
+        spillFile.read(1);
+
+        assertThat(spillFile.read(10).lines()).containsExactly("a", "b");
+    }
+
+    @Test
+    void commit_shouldTruncateFile_whenEverythingIsSent() throws IOException {
+        spillFile = open(1024);
+        spillFile.append(List.of("a", "b"));
+
+        spillFile.commit(spillFile.read(10));
+
+        assertThat(spillFile.hasPending()).isFalse();
+        assertThat(Files.size(dir.resolve("hits.ndjson"))).isZero();
+        assertThat(dir.resolve("hits.ndjson.offset")).doesNotExist();
+        assertThat(spillFile.read(10).isEmpty()).isTrue();
+    }
+
+    @Test
+    void commit_shouldKeepPositionAcrossReopen_whenPartlySent() throws IOException {
+        spillFile = open(1024);
+        spillFile.append(List.of("a", "b", "c"));
+
+        spillFile.commit(spillFile.read(2));
+        spillFile.close();
+
+        spillFile = open(1024);
+        assertThat(spillFile.hasPending()).isTrue();
+        assertThat(spillFile.read(10).lines()).containsExactly("c");
+    }
+
+    @Test
+    void open_shouldStartFromBeginning_whenOffsetIsBeyondFile() throws IOException {
+        spillFile = open(1024);
+        spillFile.append(List.of("a"));
+        spillFile.close();
+        Files.writeString(dir.resolve("hits.ndjson.offset"), "100");
+
+        spillFile = open(1024);
+
+        assertThat(spillFile.read(10).lines()).containsExactly("a");
+    }
+
+    @Test
+    void append_shouldRejectLines_whenMaxBytesWouldBeExceeded() throws IOException {
+        spillFile = open(10);
+
+        assertThat(spillFile.append(List.of("12345"))).isTrue();
+        assertThat(spillFile.append(List.of("67890"))).isFalse();
+
+        assertThat(spillFile.read(10).lines()).containsExactly("12345");
+    }
+
+    @Test
+    void append_shouldAcceptLinesAgain_afterFullFileIsSent() throws IOException {
+        spillFile = open(10);
+        spillFile.append(List.of("12345"));
+        spillFile.append(List.of("67890"));
+
+        spillFile.commit(spillFile.read(10));
+
+        assertThat(spillFile.append(List.of("67890"))).isTrue();
+        assertThat(spillFile.read(10).lines()).containsExactly("67890");
+    }
+
+    @Test
+    void read_shouldSplitLinesAcrossReadBuffers() throws IOException {
+        spillFile = open(16 * 1024 * 1024);
+        // Строки по ~100 байт суммарно больше буфера чтения в 256 КБ
+        List<String> lines = IntStream.range(0, 5000)
+                .mapToObj(i -> "%05d".formatted(i) + "x".repeat(95))
+                .toList();
+        spillFile.append(lines);
+
+        List<String> read = new ArrayList<>();
+        HitSpillFile.Chunk chunk = spillFile.read(700);
+        while (!chunk.isEmpty()) {
+            read.addAll(chunk.lines());
+            spillFile.commit(chunk);
+            chunk = spillFile.read(700);
+        }
+
+        assertThat(read).isEqualTo(lines);
+        assertThat(spillFile.hasPending()).isFalse();
+    }
+
+    private HitSpillFile open(long maxBytes) throws IOException {
+        HitSpillFile file = new HitSpillFile(dir.resolve("hits.ndjson"), maxBytes);
+        file.open();
+        return file;
+    }
+}
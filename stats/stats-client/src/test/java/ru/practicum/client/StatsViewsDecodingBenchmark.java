@@ -0,0 +1,84 @@
+package ru.practicum.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.StatsView;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Сравнение разбора ответа GET /stats: прежний путь (тело целиком в String, затем список JSON целиком)
+ * с потоковым разбором {@link StatsClientImpl#decodeStatsViews} ответа в JSON и Smile.
+ * <p>
+ * Запуск с профилировщиком аллокаций: {@code mvn -pl stats/stats-client -am install -DskipTests} из корня проекта,
+ * затем из каталога модуля
+ * <pre>
+ * mvn exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main StatsViewsDecodingBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsViewsDecodingBenchmark {
+
+    private static final TypeReference<List<StatsView>> STATS_VIEWS = new TypeReference<>() {
+    };
+
+    // Число URI в ответе: карточка события, страница списка, крупная подборка
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader jsonReader = objectMapper.readerFor(StatsView.class);
+    private final ObjectReader smileReader = objectMapper.copyWith(new SmileFactory()).readerFor(StatsView.class);
+
+    private byte[] json;
+    private byte[] smile;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<StatsView> statsViews = IntStream.rangeClosed(1, size)
+                .mapToObj(i -> new StatsView("ewm-main-service", "/events/" + i, (long) i * 31))
+                .toList();
+        json = objectMapper.writeValueAsBytes(statsViews);
+        smile = objectMapper.copyWith(new SmileFactory()).writeValueAsBytes(statsViews);
+    }
+
+    @Benchmark
+    public List<StatsView> bufferedJson() throws IOException {
+        String body = new String(json, StandardCharsets.UTF_8);
+        return objectMapper.readValue(body, STATS_VIEWS);
+    }
+
+    @Benchmark
+    public List<StatsView> streamingJson() throws IOException {
+        return StatsClientImpl.decodeStatsViews(jsonReader, new ByteArrayInputStream(json));
+    }
+
+    @Benchmark
+    public List<StatsView> streamingSmile() throws IOException {
+        return StatsClientImpl.decodeStatsViews(smileReader, new ByteArrayInputStream(smile));
+    }
+}
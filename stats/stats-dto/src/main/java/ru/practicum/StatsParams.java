@@ -26,5 +26,9 @@ public class StatsParams {
     private List<String> uris;
 
     private Boolean unique = false;
+
+    // Для unique=true: оценка по скетчам HyperLogLog с погрешностью около 1.6% вместо точного COUNT(DISTINCT).
+    // null - на усмотрение клиента статистики
+    private Boolean approximate;
 }
 
@@ -0,0 +1,49 @@
+package ru.practicum;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Тело POST /stats/query: те же параметры, что у GET /stats, но список URI передаётся в теле,
+ * а события можно указать просто id - URI вида /events/{id} сервер построит сам.
+ * Если не заданы ни uris, ни eventIds, статистика возвращается по всем URI.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class StatsQuery {
+    @NotNull(message = "Timestamp cannot be null")
+    @PastOrPresent(message = "Start date cannot be future")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+    private LocalDateTime start;
+
+    @NotNull(message = "Timestamp cannot be null")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+    private LocalDateTime end;
+
+    private List<String> uris;
+
+    private List<Long> eventIds;
+
+    @Builder.Default
+    private Boolean unique = false;
+
+    private Boolean approximate;
+}
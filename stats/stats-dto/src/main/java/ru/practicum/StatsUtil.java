@@ -3,6 +3,7 @@ package ru.practicum;
 import lombok.experimental.UtilityClass;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -14,6 +15,8 @@ public class StatsUtil {
 
     public static final String IP_ADDRESS_PATTERN = "^(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)[.]){3}(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)$";
 
+    public static final String EVENT_URI_PREFIX = "/events/";
+
     public static final LocalDateTime EPOCH_LOCAL_DATE_TIME = LocalDateTime.of(1970, 1, 1, 0, 0, 0);
 
     public String getIpAddressOrDefault(String ip) {
@@ -39,6 +42,15 @@ public class StatsUtil {
         return params;
     }
 
+    public StatsQuery buildEventsStatsQuery(Collection<Long> eventIds, boolean unique) {
+        return StatsQuery.builder()
+                .start(EPOCH_LOCAL_DATE_TIME)
+                .end(LocalDateTime.now())
+                .eventIds(List.copyOf(eventIds))
+                .unique(unique)
+                .build();
+    }
+
     public Map<Long, Long> getViewsMap(List<StatsView> statsViews) {
         return statsViews.stream()
                 .collect(Collectors.toMap(
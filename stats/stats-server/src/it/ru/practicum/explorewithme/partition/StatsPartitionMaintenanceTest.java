@@ -0,0 +1,140 @@
+package ru.practicum.explorewithme.partition;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.explorewithme.repository.StatsPartitionRepository;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Обслуживание секций stats на PostgreSQL: создание и подключение секций, перенос хитов из секции
+ * по умолчанию и удаление секций и хитов старше срока хранения. Запуск при старте отключён,
+ * каждый тест создаёт обслуживание со своими настройками.
+ */
+@SpringBootTest(properties = {
+        "spring.config.location=classpath:application-test.yml",
+        "ru.practicum.explorewithme.stats.partitions.enabled=false"
+})
+@ActiveProfiles("test")
+@Testcontainers
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class StatsPartitionMaintenanceTest {
+
+    private static final YearMonth CURRENT = YearMonth.now(ZoneOffset.UTC);
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16.1");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    private final StatsPartitionRepository statsPartitionRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        statsPartitionRepository.findPartitions().forEach(statsPartitionRepository::dropPartition);
+        jdbcTemplate.execute("TRUNCATE stats");
+    }
+
+    @Test
+    void maintain_shouldCreatePartitionsAhead() {
+        maintenance(0).maintain();
+
+        assertThat(statsPartitionRepository.findPartitions())
+                .containsExactlyInAnyOrder(CURRENT, CURRENT.plusMonths(1), CURRENT.plusMonths(2), CURRENT.plusMonths(3));
+
+        insertHits(CURRENT.plusMonths(1), 10);
+        assertThat(countHits(partitionName(CURRENT.plusMonths(1)))).isEqualTo(10);
+        assertThat(countHits("stats_default")).isZero();
+    }
+
+    @Test
+    void maintain_shouldMoveHitsOutOfDefaultPartition() {
+        insertHits(CURRENT.minusMonths(5), 100);
+        insertHits(CURRENT.minusMonths(6), 10);
+        assertThat(countHits("stats_default")).isEqualTo(110);
+
+        maintenance(0).maintain();
+
+        assertThat(statsPartitionRepository.findPartitions())
+                .contains(CURRENT.minusMonths(6), CURRENT.minusMonths(5))
+                .doesNotContain(CURRENT.minusMonths(4));
+        assertThat(countHits("stats_default")).isZero();
+        assertThat(countHits(partitionName(CURRENT.minusMonths(5)))).isEqualTo(100);
+        assertThat(countHits(partitionName(CURRENT.minusMonths(6)))).isEqualTo(10);
+        assertThat(countHits("stats")).isEqualTo(110);
+    }
+
+    @Test
+    void maintain_shouldDropPartitionsAndHitsOlderThanRetention() {
+        insertHits(CURRENT.minusMonths(5), 100);
+        insertHits(CURRENT.minusMonths(1), 20);
+        maintenance(0).maintain();
+        // Секции за этот месяц нет, хиты остаются в секции по умолчанию
+        insertHits(CURRENT.minusMonths(7), 30);
+        insertHits(CURRENT.minusMonths(2), 5);
+
+        maintenance(3).maintain();
+
+        assertThat(statsPartitionRepository.findPartitions())
+                .contains(CURRENT.minusMonths(2), CURRENT.minusMonths(1), CURRENT)
+                .doesNotContain(CURRENT.minusMonths(7), CURRENT.minusMonths(5));
+        assertThat(countHits("stats_default")).isZero();
+        assertThat(countHits(partitionName(CURRENT.minusMonths(2)))).isEqualTo(5);
+        assertThat(countHits(partitionName(CURRENT.minusMonths(1)))).isEqualTo(20);
+        assertThat(countHits("stats")).isEqualTo(25);
+    }
+
+    @Test
+    void maintain_shouldBeIdempotent() {
+        insertHits(CURRENT.minusMonths(5), 100);
+        maintenance(0).maintain();
+        maintenance(0).maintain();
+
+        assertThat(statsPartitionRepository.findPartitions()).doesNotHaveDuplicates();
+        assertThat(countHits("stats")).isEqualTo(100);
+    }
+
+    private StatsPartitionMaintenance maintenance(int retentionMonths) {
+        return new StatsPartitionMaintenance(statsPartitionRepository, transactionTemplate, true, 3, retentionMonths);
+    }
+
+    // Хиты середины месяца пишутся напрямую в stats и попадают в секцию месяца или в секцию по умолчанию
+    private void insertHits(YearMonth month, int count) {
+        OffsetDateTime timestamp = month.atDay(15).atStartOfDay().atOffset(ZoneOffset.UTC);
+        jdbcTemplate.update("INSERT INTO stats (app, uri, ip, timestamp) " +
+                "SELECT 'ewm-main-service', '/events/' || g % 10, '10.0.0.' || g % 250, ? " +
+                "FROM generate_series(1, ?) g", timestamp, count);
+    }
+
+    private long countHits(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "stats_y%04dm%02d".formatted(month.getYear(), month.getMonthValue());
+    }
+}
@@ -0,0 +1,151 @@
+package ru.practicum.explorewithme.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.StatsParams;
+import ru.practicum.StatsView;
+import ru.practicum.explorewithme.repository.StatsPartitionRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Задержка /stats при росте таблицы хитов: таблица наращивается до размеров из stats.benchmark.rows
+ * (по умолчанию 1M, 10M, 100M), и на каждом размере замеряются точные запросы по 10 событиям за последние
+ * сутки и месяц. Хиты идут с постоянной плотностью (1M за неделю), таблица растёт за счёт истории,
+ * как в работе сервиса, поэтому окно запроса содержит одинаковое число хитов на любом размере.
+ * Счётчики stats_rollup отключены: неуникальные хиты считаются по самой таблице.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.config.location=classpath:application-test.yml",
+        "ru.practicum.explorewithme.stats.partitions.enabled=false",
+        "ru.practicum.explorewithme.stats.rollup.enabled=false"
+})
+@ActiveProfiles("test")
+@Testcontainers
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class StatsQueryBenchmarkTest {
+
+    private static final int EVENTS = 10_000;
+    private static final int URIS_PER_QUERY = 10;
+    // Интервал между хитами: 1M хитов за 7 суток
+    private static final long HIT_INTERVAL_MICROS = Duration.ofDays(7).toNanos() / 1000 / 1_000_000;
+    private static final int LOAD_CHUNK = 5_000_000;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 500;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16.1");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    private final StatsService statsService;
+
+    private final StatsPartitionRepository statsPartitionRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void getStats_latencyByTableSize() {
+        long[] sizes = Arrays.stream(System.getProperty("stats.benchmark.rows", "1000000,10000000,100000000")
+                        .split(","))
+                .mapToLong(Long::parseLong)
+                .toArray();
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+        createPartitions(now, sizes[sizes.length - 1]);
+
+        long loaded = 0;
+        for (long size : sizes) {
+            long start = System.nanoTime();
+            for (; loaded < size; loaded = Math.min(size, loaded + LOAD_CHUNK)) {
+                load(now, loaded, Math.min(size, loaded + LOAD_CHUNK));
+            }
+            jdbcTemplate.execute("ANALYZE stats");
+            log.info("таблица stats: {} хитов, загрузка {} с", size,
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+
+            measure(size, "сутки, все хиты", now.minusDays(1), now, false);
+            measure(size, "сутки, уникальные", now.minusDays(1), now, true);
+            measure(size, "месяц, уникальные", now.minusDays(30), now, true);
+        }
+    }
+
+    // Секции за все месяцы данных создаются заранее, как их создаёт обслуживание до начала месяца
+    private void createPartitions(LocalDateTime now, long maxRows) {
+        YearMonth current = YearMonth.from(now);
+        YearMonth oldest = YearMonth.from(now.minus(maxRows * HIT_INTERVAL_MICROS, ChronoUnit.MICROS));
+        for (YearMonth month = oldest; !month.isAfter(current); month = month.plusMonths(1)) {
+            YearMonth partition = month;
+            if (!statsPartitionRepository.findPartitions().contains(partition)) {
+                transactionTemplate.executeWithoutResult(status -> statsPartitionRepository.createPartition(partition));
+            }
+        }
+    }
+
+    // Хит с номером g пишется на g интервалов раньше now: новые порции продолжают историю в прошлое
+    private void load(LocalDateTime now, long from, long to) {
+        jdbcTemplate.update("INSERT INTO stats (app, uri, ip, timestamp) " +
+                        "SELECT 'ewm-main-service', '/events/' || (g % ? + 1), " +
+                        "'10.' || (g / 65536 % 256) || '.' || (g / 256 % 256) || '.' || (g % 256), " +
+                        "? - g * ? * INTERVAL '1 microsecond' " +
+                        "FROM generate_series(?, ?) g",
+                EVENTS, now.atOffset(ZoneOffset.UTC), HIT_INTERVAL_MICROS, from, to - 1);
+    }
+
+    private void measure(long size, String name, LocalDateTime start, LocalDateTime end, boolean unique) {
+        for (int i = 0; i < WARMUP; i++) {
+            assertThat(statsService.getStats(params(start, end, unique))).isNotEmpty();
+        }
+        long[] latencies = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            StatsParams params = params(start, end, unique);
+            long begin = System.nanoTime();
+            List<StatsView> stats = statsService.getStats(params);
+            latencies[i] = System.nanoTime() - begin;
+            assertThat(stats).isNotEmpty();
+        }
+        Arrays.sort(latencies);
+        log.info("{} хитов, {}: среднее {} мкс, p50 {} мкс, p99 {} мкс", size, name,
+                TimeUnit.NANOSECONDS.toMicros((long) Arrays.stream(latencies).average().orElse(0)),
+                TimeUnit.NANOSECONDS.toMicros(latencies[ITERATIONS / 2]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[ITERATIONS * 99 / 100]));
+    }
+
+    private static StatsParams params(LocalDateTime start, LocalDateTime end, boolean unique) {
+        List<String> uris = IntStream.generate(() -> ThreadLocalRandom.current().nextInt(1, EVENTS + 1))
+                .distinct()
+                .limit(URIS_PER_QUERY)
+                .mapToObj(id -> "/events/" + id)
+                .toList();
+        return new StatsParams(start, end, uris, unique, false);
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.explorewithme.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -8,6 +9,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.StatsDto;
 import ru.practicum.StatsParams;
+import ru.practicum.StatsQuery;
 import ru.practicum.StatsView;
 import ru.practicum.explorewithme.service.StatsService;
 
@@ -29,6 +31,14 @@ public class StatsController {
         log.info("Запрос post/hit успешно обработан.");
     }
 
+    @PostMapping("/hits")
+    @ResponseStatus(HttpStatus.CREATED)
+    void saveHits(@RequestBody @NotEmpty(message = "Hits cannot be empty") List<@Valid StatsDto> statsDtos) {
+        log.info("Поступил запрос post/hits на создание {} hit", statsDtos.size());
+        statsService.saveHits(statsDtos);
+        log.info("Запрос post/hits успешно обработан.");
+    }
+
     @GetMapping("/stats")
     @ResponseStatus(HttpStatus.OK)
     List<StatsView> getStat(@Valid @ModelAttribute StatsParams params) {
@@ -37,4 +47,13 @@ public class StatsController {
         log.info("Запрос get/stats успешно обработан. Список статистики: {}", viewStats);
         return viewStats;
     }
+
+    @PostMapping("/stats/query")
+    @ResponseStatus(HttpStatus.OK)
+    List<StatsView> queryStats(@Valid @RequestBody StatsQuery query) {
+        log.info("Поступил запрос post/stats/query на получение статистики {}", query);
+        List<StatsView> viewStats = statsService.getStats(query);
+        log.info("Запрос post/stats/query успешно обработан. Список статистики: {}", viewStats);
+        return viewStats;
+    }
 }
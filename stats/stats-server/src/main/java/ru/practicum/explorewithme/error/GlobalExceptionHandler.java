@@ -1,5 +1,7 @@
 package ru.practicum.explorewithme.error;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
@@ -40,6 +42,20 @@ public class GlobalExceptionHandler {
         return getResponseEntity(HttpStatus.BAD_REQUEST, "Invalid input", message, stackTrace);
     }
 
+    @ExceptionHandler(ConstraintViolationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<ApiError> handleConstraintViolation(final ConstraintViolationException ex) {
+        log.warn("400 {}", ex.getMessage());
+
+        String message = ex.getConstraintViolations().stream()
+                .findFirst()
+                .map(ConstraintViolation::getMessage)
+                .orElse(ex.getMessage());
+
+        String stackTrace = getStackTrace(ex);
+        return getResponseEntity(HttpStatus.BAD_REQUEST, "Invalid input", message, stackTrace);
+    }
+
     @ExceptionHandler(NotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ApiError handleNotFoundException(final NotFoundException ex) {
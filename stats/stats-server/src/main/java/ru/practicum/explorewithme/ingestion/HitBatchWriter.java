@@ -0,0 +1,30 @@
+package ru.practicum.explorewithme.ingestion;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.explorewithme.model.Stats;
+import ru.practicum.explorewithme.repository.StatsBatchRepository;
+import ru.practicum.explorewithme.rollup.StatsRollups;
+
+import java.util.List;
+
+/**
+ * Единая точка записи хитов в БД: используется и синхронным режимом, и фоновым сбросом очереди.
+ */
+@Component
+@RequiredArgsConstructor
+public class HitBatchWriter {
+
+    private final StatsBatchRepository statsBatchRepository;
+    private final StatsRollups statsRollups;
+
+    @Transactional
+    public void write(List<Stats> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        statsBatchRepository.insertAll(hits);
+        statsRollups.record(hits);
+    }
+}
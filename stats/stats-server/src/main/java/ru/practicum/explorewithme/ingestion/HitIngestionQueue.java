@@ -0,0 +1,194 @@
+package ru.practicum.explorewithme.ingestion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import ru.practicum.explorewithme.model.Stats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Асинхронный приём хитов: запросы кладут хиты в ограниченную очередь,
+ * фоновый поток сбрасывает их в БД пакетами по достижении batchSize или по истечении flushInterval.
+ * При переполнении очереди хит записывается синхронно в потоке запроса (backpressure).
+ */
+@Slf4j
+@Component
+public class HitIngestionQueue implements SmartLifecycle {
+
+    private final HitBatchWriter hitBatchWriter;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long shutdownTimeoutMs;
+
+    private final BlockingQueue<Stats> queue;
+
+    private final Counter acceptedCounter;
+    private final Counter backpressureCounter;
+    private final Counter flushedCounter;
+    private final Counter failedCounter;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public HitIngestionQueue(
+            HitBatchWriter hitBatchWriter,
+            MeterRegistry meterRegistry,
+            @Value("${ru.practicum.explorewithme.stats.ingestion.mode:sync}") String mode,
+            @Value("${ru.practicum.explorewithme.stats.ingestion.queueCapacity:10000}") int queueCapacity,
+            @Value("${ru.practicum.explorewithme.stats.ingestion.batchSize:500}") int batchSize,
+            @Value("${ru.practicum.explorewithme.stats.ingestion.flushIntervalMs:200}") long flushIntervalMs,
+            @Value("${ru.practicum.explorewithme.stats.ingestion.shutdownTimeoutMs:30000}") long shutdownTimeoutMs
+    ) {
+        this.hitBatchWriter = hitBatchWriter;
+        this.enabled = "async".equalsIgnoreCase(mode);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("stats.ingestion.queue.size", queue, BlockingQueue::size)
+                .description("Хиты, ожидающие записи в БД")
+                .register(meterRegistry);
+        Gauge.builder("stats.ingestion.queue.remaining", queue, BlockingQueue::remainingCapacity)
+                .description("Свободное место в очереди хитов")
+                .register(meterRegistry);
+        this.acceptedCounter = Counter.builder("stats.ingestion.accepted")
+                .description("Хиты, принятые в очередь")
+                .register(meterRegistry);
+        this.backpressureCounter = Counter.builder("stats.ingestion.backpressure")
+                .description("Хиты, записанные синхронно из-за переполнения очереди")
+                .register(meterRegistry);
+        this.flushedCounter = Counter.builder("stats.ingestion.flushed")
+                .description("Хиты, записанные фоновым сбросом")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("stats.ingestion.failed")
+                .description("Хиты, потерянные из-за ошибки записи пакета")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("stats.ingestion.flush.latency")
+                .description("Время записи одного пакета хитов")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void submit(Stats hit) {
+        if (running && queue.offer(hit)) {
+            acceptedCounter.increment();
+            return;
+        }
+
+        backpressureCounter.increment();
+        log.debug("Очередь хитов заполнена или остановлена, хит записывается синхронно: {}", hit.getUri());
+        hitBatchWriter.write(List.of(hit));
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform()
+                .name("stats-ingestion-flusher")
+                .daemon(true)
+                .start(this::flushLoop);
+        log.info("Асинхронный приём хитов запущен: batchSize={}, flushIntervalMs={}, capacity={}",
+                batchSize, flushIntervalMs, queue.remainingCapacity());
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            flusher.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Очередь хитов не сброшена полностью при остановке, осталось {}", queue.size());
+        }
+        log.info("Асинхронный приём хитов остановлен");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Останавливаемся после веб-сервера, чтобы слить хиты, принятые последними запросами
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void flushLoop() {
+        List<Stats> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                flush(batch);
+                return;
+            }
+            flush(batch);
+        }
+    }
+
+    private void collectBatch(List<Stats> batch) throws InterruptedException {
+        Stats first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            Stats next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Stats> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            flushTimer.record(() -> hitBatchWriter.write(batch));
+            flushedCounter.increment(batch.size());
+        } catch (Exception e) {
+            failedCounter.increment(batch.size());
+            log.error("Ошибка записи пакета из {} хитов", batch.size(), e);
+        } finally {
+            batch.clear();
+        }
+    }
+}
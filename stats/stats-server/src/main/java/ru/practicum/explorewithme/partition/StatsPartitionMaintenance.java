@@ -0,0 +1,168 @@
+package ru.practicum.explorewithme.partition;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.explorewithme.repository.StatsPartitionRepository;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * Обслуживание помесячных секций таблицы stats: заранее создаёт секции на monthsAhead месяцев вперёд,
+ * разбирает хиты, попавшие в секцию по умолчанию, и удаляет секции старше retentionMonths целиком,
+ * вместо DELETE по всей таблице. Каждая операция над секцией выполняется отдельной короткой транзакцией
+ * под advisory-блокировкой, поэтому ACCESS EXCLUSIVE на stats не держится дольше одной операции,
+ * а сбой одной операции не откатывает остальные. Хиты из секции по умолчанию и секции прежней таблицы
+ * удаляются порциями.
+ * <p>
+ * Счётчики stats_rollup и скетчи stats_sketch при этом сохраняются, поэтому неуникальные и приближённые
+ * уникальные просмотры за удалённые месяцы по-прежнему считаются.
+ */
+@Slf4j
+@Component
+public class StatsPartitionMaintenance {
+
+    private static final int DELETE_BATCH_SIZE = 10_000;
+
+    private final StatsPartitionRepository statsPartitionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public StatsPartitionMaintenance(
+            StatsPartitionRepository statsPartitionRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${ru.practicum.explorewithme.stats.partitions.enabled:true}") boolean enabled,
+            @Value("${ru.practicum.explorewithme.stats.partitions.monthsAhead:3}") int monthsAhead,
+            @Value("${ru.practicum.explorewithme.stats.partitions.retentionMonths:0}") int retentionMonths
+    ) {
+        this.statsPartitionRepository = statsPartitionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${ru.practicum.explorewithme.stats.partitions.cron:0 0 3 * * *}", zone = "UTC")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            maintainPartitions();
+        } catch (Exception e) {
+            log.error("Ошибка обслуживания секций таблицы stats", e);
+        }
+    }
+
+    private void maintainPartitions() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        // 0 - хранить хиты бессрочно
+        YearMonth oldestKept = retentionMonths > 0 ? current.minusMonths(retentionMonths - 1) : null;
+        Optional<YearMonth> legacyBound = statsPartitionRepository.findLegacyPartitionBound();
+
+        if (oldestKept != null) {
+            for (YearMonth month : statsPartitionRepository.findPartitions()) {
+                if (month.isBefore(oldestKept) && inLockedTransaction(
+                        () -> statsPartitionRepository.findPartitions().contains(month),
+                        () -> statsPartitionRepository.dropPartition(month))) {
+                    log.info("Удалена секция хитов за {}", month);
+                }
+            }
+            legacyBound = expireLegacyPartition(legacyBound, oldestKept);
+            long deleted = deleteInBatches(() ->
+                    statsPartitionRepository.deleteFromDefaultPartitionBefore(oldestKept, DELETE_BATCH_SIZE));
+            if (deleted > 0) {
+                log.info("Удалено {} хитов старше {} из секции по умолчанию", deleted, oldestKept);
+            }
+        }
+
+        Set<YearMonth> required = new TreeSet<>(statsPartitionRepository.findDefaultPartitionMonths());
+        for (int i = 0; i <= monthsAhead; i++) {
+            required.add(current.plusMonths(i));
+        }
+        for (YearMonth month : required) {
+            // Месяцы до границы секции прежней таблицы уже покрыты ею
+            boolean coveredByLegacy = legacyBound.isPresent() && month.isBefore(legacyBound.get());
+            boolean expired = oldestKept != null && month.isBefore(oldestKept);
+            if (!coveredByLegacy && !expired && inLockedTransaction(
+                    () -> !statsPartitionRepository.findPartitions().contains(month),
+                    () -> statsPartitionRepository.createPartition(month))) {
+                log.info("Создана секция хитов за {}", month);
+            }
+        }
+    }
+
+    /**
+     * Секция прежней таблицы удаляется целиком, когда все её месяцы старше oldestKept,
+     * до этого из неё порциями удаляются устаревшие хиты.
+     *
+     * @return граница секции, если она осталась подключена
+     */
+    private Optional<YearMonth> expireLegacyPartition(Optional<YearMonth> legacyBound, YearMonth oldestKept) {
+        if (legacyBound.isEmpty()) {
+            return legacyBound;
+        }
+        YearMonth bound = legacyBound.get();
+        if (!bound.isAfter(oldestKept)) {
+            if (inLockedTransaction(
+                    () -> statsPartitionRepository.findLegacyPartitionBound().isPresent(),
+                    () -> statsPartitionRepository.dropLegacyPartition(bound))) {
+                log.info("Удалена секция хитов прежней таблицы до {}", bound);
+            }
+            return Optional.empty();
+        }
+        long deleted = deleteInBatches(() ->
+                statsPartitionRepository.deleteFromLegacyPartitionBefore(bound, oldestKept, DELETE_BATCH_SIZE));
+        if (deleted > 0) {
+            log.info("Удалено {} хитов старше {} из секции прежней таблицы", deleted, oldestKept);
+        }
+        return legacyBound;
+    }
+
+    /**
+     * Выполняет операцию в отдельной транзакции под блокировкой обслуживания, если условие
+     * по-прежнему выполняется: параллельный экземпляр мог уже выполнить её.
+     *
+     * @return true, если операция выполнена
+     */
+    private boolean inLockedTransaction(BooleanSupplier stillRequired, Runnable operation) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            statsPartitionRepository.lock();
+            if (!stillRequired.getAsBoolean()) {
+                return false;
+            }
+            operation.run();
+            return true;
+        }));
+    }
+
+    // Каждая порция удаляется своей транзакцией, чтобы не держать блокировки строк и не раздувать WAL одной транзакцией
+    private long deleteInBatches(IntSupplier deleteBatch) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = Objects.requireNonNull(transactionTemplate.execute(status -> deleteBatch.getAsInt()));
+            total += deleted;
+        } while (deleted == DELETE_BATCH_SIZE);
+        return total;
+    }
+}
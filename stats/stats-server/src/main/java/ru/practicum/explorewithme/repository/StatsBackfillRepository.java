@@ -0,0 +1,46 @@
+package ru.practicum.explorewithme.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Отметки дозаполнения производных таблиц (счётчиков, скетчей) по хитам, записанным до их появления.
+ * Отметка создаётся в schema.sql до начала приёма хитов: хиты с id не больше max_hit_id в производные
+ * таблицы не попадали, все последующие учитываются при записи.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsBackfillRepository {
+
+    public static final String ROLLUP = "ROLLUP";
+    public static final String SKETCH = "SKETCH";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Граница ещё не выполненного дозаполнения; строка отметки блокируется до конца транзакции,
+     * поэтому дозаполнение выполнит только один экземпляр.
+     */
+    public Optional<Long> lockPending(String name) {
+        List<Long> maxHitIds = jdbcTemplate.queryForList(
+                "SELECT max_hit_id FROM stats_backfill WHERE name = ? AND NOT done FOR UPDATE", Long.class, name);
+        return maxHitIds.stream().findFirst();
+    }
+
+    /**
+     * Граница ещё не выполненного дозаполнения без блокировки: для идемпотентного дозаполнения.
+     */
+    public Optional<Long> findPending(String name) {
+        List<Long> maxHitIds = jdbcTemplate.queryForList(
+                "SELECT max_hit_id FROM stats_backfill WHERE name = ? AND NOT done", Long.class, name);
+        return maxHitIds.stream().findFirst();
+    }
+
+    public void markDone(String name) {
+        jdbcTemplate.update("UPDATE stats_backfill SET done = TRUE WHERE name = ?", name);
+    }
+}
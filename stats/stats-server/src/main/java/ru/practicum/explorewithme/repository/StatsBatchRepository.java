@@ -0,0 +1,30 @@
+package ru.practicum.explorewithme.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.explorewithme.model.Stats;
+
+import java.time.ZoneOffset;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class StatsBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO stats (app, uri, ip, timestamp) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Пакетная вставка: при reWriteBatchedInserts=true драйвер PostgreSQL склеивает пакет в многострочный INSERT
+    public void insertAll(List<Stats> hits) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, hits, hits.size(), (ps, hit) -> {
+            ps.setString(1, hit.getApp());
+            ps.setString(2, hit.getUri());
+            ps.setString(3, hit.getIp());
+            // Как и Hibernate (hibernate.jdbc.time_zone: UTC) и счётчики, пишем время в UTC:
+            // OffsetDateTime не зависит от часового пояса JVM
+            ps.setObject(4, hit.getTimestamp().atOffset(ZoneOffset.UTC));
+        });
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.explorewithme.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DDL помесячных секций таблицы stats. Секция за месяц называется stats_yYYYYmMM
+ * и хранит хиты с timestamp из [начало месяца, начало следующего) по UTC.
+ * Таблица прежних версий подключена секцией stats_legacy_before_yYYYYmMM со всеми хитами до начала месяца.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsPartitionRepository {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("stats_y(\\d{4})m(\\d{2})");
+    private static final Pattern LEGACY_PARTITION_NAME = Pattern.compile("stats_legacy_before_y(\\d{4})m(\\d{2})");
+    private static final String DEFAULT_PARTITION = "stats_default";
+    private static final DateTimeFormatter BOUND_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssxxx");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Сериализует обслуживание секций между экземплярами stats-server до конца транзакции
+    public void lock() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(hashtext('stats_partition_maintenance'))",
+                Object.class);
+    }
+
+    public List<YearMonth> findPartitions() {
+        return findPartitionMonths(PARTITION_NAME);
+    }
+
+    /**
+     * Первый месяц после секции с хитами прежней таблицы, если она ещё подключена.
+     */
+    public Optional<YearMonth> findLegacyPartitionBound() {
+        return findPartitionMonths(LEGACY_PARTITION_NAME).stream().findFirst();
+    }
+
+    // Месяцы хитов, попавших в секцию по умолчанию, потому что секции за их месяц ещё не было
+    public List<YearMonth> findDefaultPartitionMonths() {
+        return jdbcTemplate.queryForList(
+                        "SELECT DISTINCT date_trunc('month', timestamp AT TIME ZONE 'UTC') FROM stats_default",
+                        Timestamp.class)
+                .stream()
+                .map(Timestamp::toLocalDateTime)
+                .map(YearMonth::from)
+                .toList();
+    }
+
+    /**
+     * Создаёт секцию за месяц, перенося в неё хиты этого месяца из секции по умолчанию:
+     * иначе PostgreSQL не даст подключить секцию, пересекающуюся с данными stats_default.
+     */
+    public void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        OffsetDateTime from = start(month);
+        OffsetDateTime to = start(month.plusMonths(1));
+
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE stats INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        // Хиты этого месяца, вставленные между переносом и подключением, сорвали бы ATTACH
+        jdbcTemplate.execute("LOCK TABLE stats_default IN EXCLUSIVE MODE");
+        jdbcTemplate.update("WITH moved AS (" +
+                        "DELETE FROM stats_default WHERE timestamp >= ? AND timestamp < ? " +
+                        "RETURNING id, app, uri, ip, timestamp) " +
+                        "INSERT INTO " + name + " (id, app, uri, ip, timestamp) " +
+                        "SELECT id, app, uri, ip, timestamp FROM moved",
+                from, to);
+        jdbcTemplate.execute("ALTER TABLE stats ATTACH PARTITION " + name +
+                " FOR VALUES FROM ('" + from.format(BOUND_FORMATTER) + "') TO ('" + to.format(BOUND_FORMATTER) + "')");
+    }
+
+    public void dropPartition(YearMonth month) {
+        drop(partitionName(month));
+    }
+
+    public void dropLegacyPartition(YearMonth bound) {
+        drop(legacyPartitionName(bound));
+    }
+
+    /**
+     * Удаляет из секции по умолчанию не больше limit хитов старше начала месяца.
+     */
+    public int deleteFromDefaultPartitionBefore(YearMonth month, int limit) {
+        return deleteBefore(DEFAULT_PARTITION, month, limit);
+    }
+
+    /**
+     * Удаляет из секции прежней таблицы не больше limit хитов старше начала месяца.
+     */
+    public int deleteFromLegacyPartitionBefore(YearMonth bound, YearMonth month, int limit) {
+        return deleteBefore(legacyPartitionName(bound), month, limit);
+    }
+
+    private List<YearMonth> findPartitionMonths(Pattern pattern) {
+        return jdbcTemplate.queryForList(
+                        "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                                "WHERE i.inhparent = 'stats'::regclass", String.class)
+                .stream()
+                .map(pattern::matcher)
+                .filter(Matcher::matches)
+                .map(m -> YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))))
+                .toList();
+    }
+
+    private void drop(String name) {
+        jdbcTemplate.execute("ALTER TABLE stats DETACH PARTITION " + name);
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+
+    private int deleteBefore(String partition, YearMonth month, int limit) {
+        return jdbcTemplate.update("DELETE FROM " + partition + " WHERE ctid IN (" +
+                "SELECT ctid FROM " + partition + " WHERE timestamp < ? LIMIT ?)", start(month), limit);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "stats_y%04dm%02d".formatted(month.getYear(), month.getMonthValue());
+    }
+
+    private static String legacyPartitionName(YearMonth bound) {
+        return "stats_legacy_before_y%04dm%02d".formatted(bound.getYear(), bound.getMonthValue());
+    }
+
+    private static OffsetDateTime start(YearMonth month) {
+        return month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+}
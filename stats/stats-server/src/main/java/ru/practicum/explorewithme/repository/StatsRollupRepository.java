@@ -0,0 +1,141 @@
+package ru.practicum.explorewithme.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.StatsView;
+import ru.practicum.explorewithme.model.Stats;
+import ru.practicum.explorewithme.rollup.Granularity;
+import ru.practicum.explorewithme.rollup.RollupRangePlan;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@Repository
+@RequiredArgsConstructor
+public class StatsRollupRepository {
+
+    private static final String UPSERT_SQL = "INSERT INTO stats_rollup (app, uri, granularity, bucket_start, hits) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (app, uri, granularity, bucket_start) " +
+            "DO UPDATE SET hits = stats_rollup.hits + EXCLUDED.hits";
+
+    // Поле date_trunc подставляется из Granularity: с параметром PostgreSQL не сопоставит выражение в GROUP BY
+    private static final String BACKFILL_SQL = "INSERT INTO stats_rollup (app, uri, granularity, bucket_start, hits) " +
+            "SELECT app, uri, ?, date_trunc('%1$s', timestamp AT TIME ZONE 'UTC') AT TIME ZONE 'UTC', COUNT(*) " +
+            "FROM stats " +
+            "WHERE id <= ? " +
+            "GROUP BY app, uri, date_trunc('%1$s', timestamp AT TIME ZONE 'UTC') " +
+            "ON CONFLICT (app, uri, granularity, bucket_start) " +
+            "DO UPDATE SET hits = stats_rollup.hits + EXCLUDED.hits";
+
+    // Ключи сортируются, чтобы параллельные пакеты блокировали строки счётчиков в одном порядке
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator
+            .comparing(RollupKey::granularity)
+            .thenComparing(RollupKey::app)
+            .thenComparing(RollupKey::uri)
+            .thenComparing(RollupKey::bucketStart);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final StatsBackfillRepository statsBackfillRepository;
+
+    public void increment(List<Stats> hits) {
+        Map<RollupKey, Long> counters = new TreeMap<>(KEY_ORDER);
+        for (Stats hit : hits) {
+            for (Granularity granularity : Granularity.values()) {
+                RollupKey key = new RollupKey(hit.getApp(), hit.getUri(), granularity,
+                        granularity.floor(hit.getTimestamp()));
+                counters.merge(key, 1L, Long::sum);
+            }
+        }
+
+        List<Map.Entry<RollupKey, Long>> rows = new ArrayList<>(counters.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            RollupKey key = row.getKey();
+            ps.setString(1, key.app());
+            ps.setString(2, key.uri());
+            ps.setString(3, key.granularity().name());
+            ps.setObject(4, toUtc(key.bucketStart()));
+            ps.setLong(5, row.getValue());
+        });
+    }
+
+    /**
+     * Добавляет в счётчики хиты, записанные до их появления (id не больше отметки {@link StatsBackfillRepository}),
+     * если это ещё не сделано. Хиты после отметки уже учтены при записи, поэтому счётчики складываются.
+     * Таблица счётчиков блокируется, чтобы параллельная запись хитов не конфликтовала с дозаполнением.
+     *
+     * @return число созданных или дополненных корзин
+     */
+    @Transactional
+    public long backfill() {
+        Optional<Long> maxHitId = statsBackfillRepository.lockPending(StatsBackfillRepository.ROLLUP);
+        if (maxHitId.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.execute("LOCK TABLE stats_rollup IN EXCLUSIVE MODE");
+        long rows = 0;
+        for (Granularity granularity : Granularity.values()) {
+            String sql = BACKFILL_SQL.formatted(granularity.name().toLowerCase());
+            rows += jdbcTemplate.update(sql, granularity.name(), maxHitId.get());
+        }
+        statsBackfillRepository.markDone(StatsBackfillRepository.ROLLUP);
+        return rows;
+    }
+
+    public List<StatsView> findHits(RollupRangePlan plan, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String uriFilter = "";
+        if (uris != null && !uris.isEmpty()) {
+            params.addValue("uris", uris);
+            uriFilter = " AND uri IN (:uris)";
+        }
+
+        List<String> parts = new ArrayList<>();
+        int i = 0;
+        for (RollupRangePlan.BucketRange range : plan.buckets()) {
+            parts.add("SELECT app, uri, hits FROM stats_rollup " +
+                    "WHERE granularity = :g" + i + " AND bucket_start >= :from" + i + " AND bucket_start < :to" + i +
+                    uriFilter);
+            params.addValue("g" + i, range.granularity().name());
+            params.addValue("from" + i, toUtc(range.from()));
+            params.addValue("to" + i, toUtc(range.to()));
+            i++;
+        }
+        for (RollupRangePlan.RawRange range : plan.raw()) {
+            parts.add("SELECT app, uri, COUNT(*) AS hits FROM stats " +
+                    "WHERE timestamp >= :from" + i + " AND timestamp < :to" + i + uriFilter +
+                    " GROUP BY app, uri");
+            params.addValue("from" + i, toUtc(range.from()));
+            params.addValue("to" + i, toUtc(range.to()));
+            i++;
+        }
+        if (parts.isEmpty()) {
+            return List.of();
+        }
+
+        String sql = "SELECT app, uri, SUM(hits) AS hits FROM (" + String.join(" UNION ALL ", parts) + ") h " +
+                "GROUP BY app, uri " +
+                "ORDER BY SUM(hits) DESC";
+        return namedParameterJdbcTemplate.query(sql, params,
+                (rs, rowNum) -> new StatsView(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    private static OffsetDateTime toUtc(LocalDateTime time) {
+        return time.atOffset(ZoneOffset.UTC);
+    }
+
+    private record RollupKey(String app, String uri, Granularity granularity, LocalDateTime bucketStart) {
+    }
+}
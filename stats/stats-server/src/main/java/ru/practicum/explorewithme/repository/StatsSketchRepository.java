@@ -0,0 +1,196 @@
+package ru.practicum.explorewithme.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.explorewithme.model.Stats;
+import ru.practicum.explorewithme.rollup.AppUri;
+import ru.practicum.explorewithme.rollup.Granularity;
+import ru.practicum.explorewithme.rollup.HyperLogLog;
+import ru.practicum.explorewithme.rollup.RollupRangePlan;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@Repository
+@RequiredArgsConstructor
+public class StatsSketchRepository {
+
+    // Слияние регистров выполняет сама БД (stats_hll_merge из schema.sql): одна запись на корзину без чтения
+    private static final String MERGE_SQL = "INSERT INTO stats_sketch (app, uri, granularity, bucket_start, registers) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (granularity, uri, bucket_start, app) " +
+            "DO UPDATE SET registers = stats_hll_merge(stats_sketch.registers, EXCLUDED.registers)";
+
+    private static final String BACKFILL_CHUNK_SQL = "SELECT id, app, uri, ip, timestamp AT TIME ZONE 'UTC' AS ts " +
+            "FROM stats WHERE id > ? AND id <= ? ORDER BY id LIMIT ?";
+
+    private static final String DELETE_BEFORE_SQL = "DELETE FROM stats_sketch WHERE ctid IN (" +
+            "SELECT ctid FROM stats_sketch WHERE granularity = ? AND bucket_start < ? LIMIT ?)";
+
+    // Скетчи по минутам заняли бы слишком много места, поэтому минимальная корзина - час
+    public static final List<Granularity> SKETCH_GRANULARITIES = List.of(Granularity.DAY, Granularity.HOUR);
+
+    // Ключи сортируются в порядке первичного ключа, чтобы параллельные пакеты блокировали строки в одном порядке
+    private static final Comparator<SketchKey> KEY_ORDER = Comparator
+            .comparing(SketchKey::granularity)
+            .thenComparing(SketchKey::uri)
+            .thenComparing(SketchKey::bucketStart)
+            .thenComparing(SketchKey::app);
+
+    private static final int BACKFILL_CHUNK_SIZE = 10_000;
+    private static final int DELETE_BATCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final StatsBackfillRepository statsBackfillRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Добавляет IP хитов в скетчи их корзин: скетчи пакета собираются в памяти и записываются
+     * одним пакетным upsert, по строке на корзину.
+     */
+    public void merge(List<Stats> hits) {
+        Map<SketchKey, HyperLogLog> sketches = new TreeMap<>(KEY_ORDER);
+        for (Stats hit : hits) {
+            for (Granularity granularity : SKETCH_GRANULARITIES) {
+                SketchKey key = new SketchKey(hit.getApp(), hit.getUri(), granularity,
+                        granularity.floor(hit.getTimestamp()));
+                sketches.computeIfAbsent(key, k -> new HyperLogLog()).add(hit.getIp());
+            }
+        }
+
+        List<Map.Entry<SketchKey, HyperLogLog>> rows = new ArrayList<>(sketches.entrySet());
+        jdbcTemplate.batchUpdate(MERGE_SQL, rows, rows.size(), (ps, row) -> {
+            SketchKey key = row.getKey();
+            ps.setString(1, key.app());
+            ps.setString(2, key.uri());
+            ps.setString(3, key.granularity().name());
+            ps.setObject(4, toUtc(key.bucketStart()));
+            ps.setBytes(5, row.getValue().toBytes());
+        });
+    }
+
+    /**
+     * Добавляет в скетчи хиты, записанные до их появления (id не больше отметки {@link StatsBackfillRepository}),
+     * если это ещё не сделано. Хиты читаются порциями по id, каждая порция сливается отдельной транзакцией.
+     * Слияние скетчей идемпотентно, поэтому прерванное или параллельное дозаполнение безопасно повторить.
+     *
+     * @return число прочитанных хитов
+     */
+    public long backfill() {
+        Optional<Long> maxHitId = statsBackfillRepository.findPending(StatsBackfillRepository.SKETCH);
+        if (maxHitId.isEmpty()) {
+            return 0;
+        }
+        long lastId = 0;
+        long total = 0;
+        while (true) {
+            List<Stats> chunk = jdbcTemplate.query(BACKFILL_CHUNK_SQL, (rs, rowNum) -> Stats.builder()
+                    .id(rs.getLong("id"))
+                    .app(rs.getString("app"))
+                    .uri(rs.getString("uri"))
+                    .ip(rs.getString("ip"))
+                    .timestamp(rs.getObject("ts", LocalDateTime.class))
+                    .build(), lastId, maxHitId.get(), BACKFILL_CHUNK_SIZE);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status -> merge(chunk));
+            lastId = chunk.getLast().getId();
+            total += chunk.size();
+        }
+        statsBackfillRepository.markDone(StatsBackfillRepository.SKETCH);
+        return total;
+    }
+
+    /**
+     * Начало самой ранней суточной корзины: раньше скетчей нет, и запрос можно начинать с неё.
+     */
+    public Optional<LocalDateTime> findFirstDayBucket() {
+        OffsetDateTime first = jdbcTemplate.queryForObject(
+                "SELECT MIN(bucket_start) FROM stats_sketch WHERE granularity = ?",
+                OffsetDateTime.class, Granularity.DAY.name());
+        return Optional.ofNullable(first)
+                .map(time -> time.withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime());
+    }
+
+    /**
+     * Удаляет корзины granularity, начавшиеся раньше before, порциями в отдельных транзакциях.
+     *
+     * @return число удалённых корзин
+     */
+    public long deleteBefore(Granularity granularity, LocalDateTime before) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(DELETE_BEFORE_SQL, granularity.name(), toUtc(before), DELETE_BATCH_SIZE);
+            total += deleted;
+        } while (deleted == DELETE_BATCH_SIZE);
+        return total;
+    }
+
+    /**
+     * Сливает в sketches скетчи всех корзин плана.
+     */
+    public void mergeBuckets(RollupRangePlan plan, List<String> uris, Map<AppUri, HyperLogLog> sketches) {
+        for (RollupRangePlan.BucketRange range : plan.buckets()) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("granularity", range.granularity().name())
+                    .addValue("from", toUtc(range.from()))
+                    .addValue("to", toUtc(range.to()));
+            String sql = "SELECT app, uri, registers FROM stats_sketch " +
+                    "WHERE granularity = :granularity AND bucket_start >= :from AND bucket_start < :to" +
+                    uriFilter(uris, params);
+            namedParameterJdbcTemplate.query(sql, params, rs -> {
+                HyperLogLog sketch = HyperLogLog.fromBytes(rs.getBytes("registers"));
+                sketches.merge(new AppUri(rs.getString("app"), rs.getString("uri")), sketch, (a, b) -> {
+                    a.merge(b);
+                    return a;
+                });
+            });
+        }
+    }
+
+    /**
+     * Добавляет в sketches IP сырых хитов на краях плана, не покрытых корзинами.
+     */
+    public void mergeRaw(RollupRangePlan plan, List<String> uris, Map<AppUri, HyperLogLog> sketches) {
+        for (RollupRangePlan.RawRange range : plan.raw()) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("from", toUtc(range.from()))
+                    .addValue("to", toUtc(range.to()));
+            String sql = "SELECT DISTINCT app, uri, ip FROM stats WHERE timestamp >= :from AND timestamp < :to" +
+                    uriFilter(uris, params);
+            namedParameterJdbcTemplate.query(sql, params, rs -> {
+                sketches.computeIfAbsent(new AppUri(rs.getString("app"), rs.getString("uri")), k -> new HyperLogLog())
+                        .add(rs.getString("ip"));
+            });
+        }
+    }
+
+    private static String uriFilter(List<String> uris, MapSqlParameterSource params) {
+        if (uris == null || uris.isEmpty()) {
+            return "";
+        }
+        params.addValue("uris", uris);
+        return " AND uri IN (:uris)";
+    }
+
+    private static OffsetDateTime toUtc(LocalDateTime time) {
+        return time.atOffset(ZoneOffset.UTC);
+    }
+
+    private record SketchKey(String app, String uri, Granularity granularity, LocalDateTime bucketStart) {
+    }
+}
@@ -0,0 +1,4 @@
+package ru.practicum.explorewithme.rollup;
+
+public record AppUri(String app, String uri) {
+}
@@ -0,0 +1,132 @@
+package ru.practicum.explorewithme.rollup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Скетч HyperLogLog для оценки числа уникальных IP. 2^12 = 4096 регистров по байту,
+ * т.е. не больше 4 КБ на корзину независимо от числа хитов.
+ * <p>
+ * Стандартная ошибка оценки 1.04 / sqrt(4096) ≈ 1.6%: примерно в 95% случаев оценка
+ * отличается от точного значения не более чем на 3.3%. На малых количествах (до нескольких тысяч)
+ * используется linear counting, и оценка практически точная.
+ * <p>
+ * Скетчи объединяются поэлементным максимумом регистров, поэтому корзины можно складывать
+ * в любом порядке без потери точности, а повторное слияние того же скетча ничего не меняет.
+ * <p>
+ * В БД скетч хранится в одном из двух форматов, различимых по длине: разреженный - тройки
+ * (номер регистра, 2 байта big-endian; значение, 1 байт) по возрастанию номера, только ненулевые регистры;
+ * плотный - все {@value #REGISTERS} регистров подряд. Разреженный выбирается, пока он короче плотного,
+ * т.е. для корзин с небольшим числом уникальных IP. Тот же формат строит функция stats_hll_merge в schema.sql.
+ */
+public final class HyperLogLog {
+
+    public static final int PRECISION = 12;
+    public static final int REGISTERS = 1 << PRECISION;
+    public static final double STANDARD_ERROR = 1.04 / Math.sqrt(REGISTERS);
+
+    private static final int SPARSE_ENTRY_BYTES = 3;
+
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length == REGISTERS) {
+            return new HyperLogLog(Arrays.copyOf(bytes, REGISTERS));
+        }
+        if (bytes.length % SPARSE_ENTRY_BYTES != 0) {
+            throw new IllegalArgumentException("Неверный размер скетча HyperLogLog: " + bytes.length);
+        }
+        byte[] registers = new byte[REGISTERS];
+        for (int i = 0; i < bytes.length; i += SPARSE_ENTRY_BYTES) {
+            int index = ((bytes[i] & 0xff) << 8) | (bytes[i + 1] & 0xff);
+            if (index >= REGISTERS) {
+                throw new IllegalArgumentException("Неверный номер регистра скетча HyperLogLog: " + index);
+            }
+            registers[index] = bytes[i + 2];
+        }
+        return new HyperLogLog(registers);
+    }
+
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+        if (nonZero * SPARSE_ENTRY_BYTES >= REGISTERS) {
+            return Arrays.copyOf(registers, REGISTERS);
+        }
+        byte[] bytes = new byte[nonZero * SPARSE_ENTRY_BYTES];
+        int position = 0;
+        for (int i = 0; i < REGISTERS; i++) {
+            if (registers[i] != 0) {
+                bytes[position] = (byte) (i >>> 8);
+                bytes[position + 1] = (byte) i;
+                bytes[position + 2] = registers[i];
+                position += SPARSE_ENTRY_BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    public void add(String value) {
+        long hash = hash(value.getBytes(StandardCharsets.UTF_8));
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        // Ранг - позиция первой единицы в оставшихся битах; сторожевой бит ограничивает его сверху
+        long rest = (hash << PRECISION) | (1L << (PRECISION - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    // 64-битный FNV-1a с финализатором MurmurHash3 для равномерного распределения битов
+    private static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe1a85ec3L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
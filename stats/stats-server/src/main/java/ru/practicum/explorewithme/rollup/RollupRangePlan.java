@@ -0,0 +1,63 @@
+package ru.practicum.explorewithme.rollup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбиение полуинтервала [from, to) на диапазоны корзин максимального размера
+ * и сырые хвосты по краям, которые не покрываются ни одной целой минутой.
+ * <p>
+ * Например, [10:15:30, 2 дня спустя 03:00) даёт: сырые хиты до 10:16, минуты до 11:00,
+ * часы до полуночи, целые сутки, часы до 03:00.
+ */
+public record RollupRangePlan(List<BucketRange> buckets, List<RawRange> raw) {
+
+    public static RollupRangePlan of(LocalDateTime from, LocalDateTime to) {
+        return of(from, to, Granularity.MINUTE);
+    }
+
+    /**
+     * @param finest самая мелкая корзина, которую можно использовать; всё, что мельче, читается из сырых хитов
+     */
+    public static RollupRangePlan of(LocalDateTime from, LocalDateTime to, Granularity finest) {
+        RollupRangePlan plan = new RollupRangePlan(new ArrayList<>(), new ArrayList<>());
+        plan.split(from, to, Granularity.DAY, finest);
+        return plan;
+    }
+
+    /**
+     * План, читающий оба плана; диапазоны не должны пересекаться.
+     */
+    public RollupRangePlan plus(RollupRangePlan other) {
+        RollupRangePlan plan = new RollupRangePlan(new ArrayList<>(buckets), new ArrayList<>(raw));
+        plan.buckets.addAll(other.buckets);
+        plan.raw.addAll(other.raw);
+        return plan;
+    }
+
+    private void split(LocalDateTime from, LocalDateTime to, Granularity granularity, Granularity finest) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (granularity == null || granularity.compareTo(finest) > 0) {
+            raw.add(new RawRange(from, to));
+            return;
+        }
+        LocalDateTime alignedFrom = granularity.ceil(from);
+        LocalDateTime alignedTo = granularity.floor(to);
+        if (!alignedFrom.isBefore(alignedTo)) {
+            split(from, to, granularity.finer(), finest);
+            return;
+        }
+        split(from, alignedFrom, granularity.finer(), finest);
+        buckets.add(new BucketRange(granularity, alignedFrom, alignedTo));
+        split(alignedTo, to, granularity.finer(), finest);
+    }
+
+    public record BucketRange(Granularity granularity, LocalDateTime from, LocalDateTime to) {
+    }
+
+    public record RawRange(LocalDateTime from, LocalDateTime to) {
+    }
+}
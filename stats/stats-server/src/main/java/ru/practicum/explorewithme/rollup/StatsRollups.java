@@ -0,0 +1,165 @@
+package ru.practicum.explorewithme.rollup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.StatsView;
+import ru.practicum.explorewithme.model.Stats;
+import ru.practicum.explorewithme.repository.StatsRollupRepository;
+import ru.practicum.explorewithme.repository.StatsSketchRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Счётчики хитов по (app, uri) в корзинах минута/час/сутки, обновляемые при записи хитов.
+ * Запрос неуникальных хитов за период собирается из самых крупных корзин, целиком попадающих
+ * в период, и сырых хитов на краях, поэтому его стоимость не растёт вместе с историей.
+ * <p>
+ * Уникальные IP по корзинам не суммируются, поэтому для них в корзинах час/сутки хранятся
+ * скетчи {@link HyperLogLog}: приближённый подсчёт объединяет скетчи корзин и IP сырых хитов на краях
+ * (погрешность см. {@link HyperLogLog#STANDARD_ERROR}). Точный подсчёт по-прежнему идёт по сырым хитам.
+ * Часовые скетчи хранятся hourRetentionDays суток, суточные - dayRetentionDays; за периоды без часовых
+ * скетчей неполные сутки на краях читаются из сырых хитов.
+ */
+@Slf4j
+@Component
+public class StatsRollups {
+
+    // Точность TIMESTAMPTZ в PostgreSQL - микросекунды: BETWEEN start AND end == [start, end + 1 мкс)
+    private static final long END_INCLUSIVE_NANOS = 1_000;
+
+    private final StatsRollupRepository statsRollupRepository;
+    private final StatsSketchRepository statsSketchRepository;
+    private final boolean enabled;
+    private final int hourSketchRetentionDays;
+    private final int daySketchRetentionDays;
+
+    public StatsRollups(
+            StatsRollupRepository statsRollupRepository,
+            StatsSketchRepository statsSketchRepository,
+            @Value("${ru.practicum.explorewithme.stats.rollup.enabled:true}") boolean enabled,
+            @Value("${ru.practicum.explorewithme.stats.sketch.hourRetentionDays:35}") int hourSketchRetentionDays,
+            @Value("${ru.practicum.explorewithme.stats.sketch.dayRetentionDays:0}") int daySketchRetentionDays
+    ) {
+        this.statsRollupRepository = statsRollupRepository;
+        this.statsSketchRepository = statsSketchRepository;
+        this.enabled = enabled;
+        this.hourSketchRetentionDays = hourSketchRetentionDays;
+        this.daySketchRetentionDays = daySketchRetentionDays;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Вызывается в транзакции записи хитов, чтобы счётчики не расходились с сырыми данными
+    public void record(List<Stats> hits) {
+        if (!enabled) {
+            return;
+        }
+        statsRollupRepository.increment(hits);
+        statsSketchRepository.merge(hits);
+    }
+
+    public List<StatsView> getHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        if (start.isAfter(end)) {
+            return List.of();
+        }
+        RollupRangePlan plan = RollupRangePlan.of(start, end.plusNanos(END_INCLUSIVE_NANOS));
+        log.debug("План запроса статистики: {}", plan);
+        return statsRollupRepository.findHits(plan, uris);
+    }
+
+    public List<StatsView> getApproximateUniqueHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        if (start.isAfter(end)) {
+            return List.of();
+        }
+        // Раньше первой суточной корзины хитов нет: сдвигаем начало, чтобы не читать сырые хиты на краю
+        Optional<LocalDateTime> firstBucket = statsSketchRepository.findFirstDayBucket();
+        if (firstBucket.isPresent() && start.isBefore(firstBucket.get())) {
+            start = firstBucket.get();
+        }
+        RollupRangePlan plan = planApproximate(start, end.plusNanos(END_INCLUSIVE_NANOS));
+        log.debug("План приближённого запроса уникальных хитов: {}", plan);
+
+        Map<AppUri, HyperLogLog> sketches = new HashMap<>();
+        statsSketchRepository.mergeBuckets(plan, uris, sketches);
+        statsSketchRepository.mergeRaw(plan, uris, sketches);
+        return sketches.entrySet().stream()
+                .map(e -> new StatsView(e.getKey().app(), e.getKey().uri(), e.getValue().estimate()))
+                .sorted(Comparator.comparing(StatsView::getHits).reversed())
+                .toList();
+    }
+
+    /**
+     * Удаляет скетчи старше сроков хранения; часовые нужны только для краёв недавних периодов.
+     */
+    @Scheduled(cron = "${ru.practicum.explorewithme.stats.sketch.cron:0 30 3 * * *}", zone = "UTC")
+    public void pruneSketches() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            pruneSketches(Granularity.HOUR, hourSketchRetentionDays);
+            pruneSketches(Granularity.DAY, daySketchRetentionDays);
+        } catch (Exception e) {
+            log.error("Ошибка удаления устаревших скетчей уникальных IP", e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!enabled) {
+            return;
+        }
+        long rows = statsRollupRepository.backfill();
+        if (rows > 0) {
+            log.info("Счётчики хитов построены по существующей статистике: {} корзин", rows);
+        }
+        long hits = statsSketchRepository.backfill();
+        if (hits > 0) {
+            log.info("Скетчи уникальных IP дополнены существующей статистикой: {} хитов", hits);
+        }
+    }
+
+    // До границы хранения часовых скетчей план строится из суточных корзин, после - из часовых
+    private RollupRangePlan planApproximate(LocalDateTime from, LocalDateTime to) {
+        Optional<LocalDateTime> cutoff = retentionCutoff(hourSketchRetentionDays);
+        if (cutoff.isEmpty() || !from.isBefore(cutoff.get())) {
+            return RollupRangePlan.of(from, to, Granularity.HOUR);
+        }
+        if (!to.isAfter(cutoff.get())) {
+            return RollupRangePlan.of(from, to, Granularity.DAY);
+        }
+        return RollupRangePlan.of(from, cutoff.get(), Granularity.DAY)
+                .plus(RollupRangePlan.of(cutoff.get(), to, Granularity.HOUR));
+    }
+
+    private void pruneSketches(Granularity granularity, int retentionDays) {
+        Optional<LocalDateTime> cutoff = retentionCutoff(retentionDays);
+        if (cutoff.isEmpty()) {
+            return;
+        }
+        long deleted = statsSketchRepository.deleteBefore(granularity, cutoff.get());
+        if (deleted > 0) {
+            log.info("Удалено {} скетчей {} старше {}", deleted, granularity, cutoff.get());
+        }
+    }
+
+    // Начало самых старых хранимых суток; 0 - хранить бессрочно
+    private static Optional<LocalDateTime> retentionCutoff(int retentionDays) {
+        if (retentionDays <= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(Granularity.DAY.floor(LocalDateTime.now(ZoneOffset.UTC)).minusDays(retentionDays));
+    }
+}
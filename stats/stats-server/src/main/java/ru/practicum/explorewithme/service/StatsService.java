@@ -2,6 +2,7 @@ package ru.practicum.explorewithme.service;
 
 import ru.practicum.StatsDto;
 import ru.practicum.StatsParams;
+import ru.practicum.StatsQuery;
 import ru.practicum.StatsView;
 
 import java.util.List;
@@ -9,6 +10,10 @@ import java.util.List;
 public interface StatsService {
     void saveHit(StatsDto statsDto);
 
+    void saveHits(List<StatsDto> statsDtos);
+
     List<StatsView> getStats(StatsParams param);
+
+    List<StatsView> getStats(StatsQuery query);
 }
 
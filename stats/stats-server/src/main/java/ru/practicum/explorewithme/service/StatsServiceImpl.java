@@ -7,11 +7,17 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.StatsDto;
 import ru.practicum.StatsParams;
+import ru.practicum.StatsQuery;
+import ru.practicum.StatsUtil;
 import ru.practicum.StatsView;
+import ru.practicum.explorewithme.ingestion.HitBatchWriter;
+import ru.practicum.explorewithme.ingestion.HitIngestionQueue;
 import ru.practicum.explorewithme.mapper.StatsMapper;
 import ru.practicum.explorewithme.model.Stats;
 import ru.practicum.explorewithme.repository.StatsRepository;
+import ru.practicum.explorewithme.rollup.StatsRollups;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -21,24 +27,46 @@ public class StatsServiceImpl implements StatsService {
 
     private final StatsRepository statsRepository;
     private final StatsMapper mapper;
+    private final HitIngestionQueue hitIngestionQueue;
+    private final HitBatchWriter hitBatchWriter;
+    private final StatsRollups statsRollups;
 
     @Override
-    @Transactional
     public void saveHit(StatsDto statsDto) {
         Stats stats = mapper.toStats(statsDto);
-        statsRepository.save(stats);
+        if (hitIngestionQueue.isEnabled()) {
+            hitIngestionQueue.submit(stats);
+        } else {
+            hitBatchWriter.write(List.of(stats));
+        }
+    }
+
+    @Override
+    public void saveHits(List<StatsDto> statsDtos) {
+        List<Stats> hits = statsDtos.stream()
+                .map(mapper::toStats)
+                .toList();
+        if (hitIngestionQueue.isEnabled()) {
+            hits.forEach(hitIngestionQueue::submit);
+        } else {
+            hitBatchWriter.write(hits);
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<StatsView> getStats(StatsParams param) {
         List<StatsView> viewStats;
-        if (param.getUnique()) {
+        if (param.getUnique() && Boolean.TRUE.equals(param.getApproximate()) && statsRollups.isEnabled()) {
+            viewStats = statsRollups.getApproximateUniqueHits(param.getStart(), param.getEnd(), param.getUris());
+        } else if (param.getUnique()) {
             viewStats = statsRepository.findAllUniqueIpAndTimestampBetweenAndUriIn(
                     param.getStart(),
                     param.getEnd(),
                     param.getUris()
             );
+        } else if (statsRollups.isEnabled()) {
+            viewStats = statsRollups.getHits(param.getStart(), param.getEnd(), param.getUris());
         } else {
             viewStats = statsRepository.findAllByTimestampBetweenAndUriIn(
                     param.getStart(),
@@ -48,4 +76,24 @@ public class StatsServiceImpl implements StatsService {
         }
         return viewStats;
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StatsView> getStats(StatsQuery query) {
+        List<String> uris = new ArrayList<>();
+        if (query.getUris() != null) {
+            uris.addAll(query.getUris());
+        }
+        if (query.getEventIds() != null) {
+            query.getEventIds().forEach(id -> uris.add(StatsUtil.EVENT_URI_PREFIX + id));
+        }
+
+        StatsParams params = new StatsParams();
+        params.setStart(query.getStart());
+        params.setEnd(query.getEnd());
+        params.setUris(uris.isEmpty() ? null : uris);
+        params.setUnique(Boolean.TRUE.equals(query.getUnique()));
+        params.setApproximate(query.getApproximate());
+        return getStats(params);
+    }
 }
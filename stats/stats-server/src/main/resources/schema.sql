@@ -1,9 +1,136 @@
-DROP TABLE IF EXISTS stats;
+-- Таблица stats из прежних версий не секционирована: переименовываем её, ниже она подключается секцией
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass(''stats'') AND relkind = ''r'') THEN
+        ALTER TABLE stats RENAME TO stats_legacy;
+        ALTER INDEX IF EXISTS idx_stats_timestamp RENAME TO stats_legacy_timestamp_idx;
+    END IF;
+END
+';
 
+CREATE SEQUENCE IF NOT EXISTS stats_hit_id_seq;
+
+-- Хиты секционированы по месяцам; секции создаёт и удаляет StatsPartitionMaintenance,
+-- в stats_default попадают хиты вне созданных секций
 CREATE TABLE IF NOT EXISTS stats (
-    id BIGINT GENERATED ALWAYS AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL DEFAULT nextval('stats_hit_id_seq'),
     app VARCHAR(255) NOT NULL,
     uri VARCHAR(2048) NOT NULL,
     ip VARCHAR(45) NOT NULL,
-    timestamp TIMESTAMP WITH TIME ZONE NOT NULL
+    timestamp TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE IF NOT EXISTS stats_default PARTITION OF stats DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_stats_timestamp ON stats (timestamp);
+-- Покрывающий индекс под запросы статистики: фильтр по uri и периоду, ip для уникальных без чтения таблицы
+CREATE INDEX IF NOT EXISTS idx_stats_uri_timestamp ON stats (uri, timestamp) INCLUDE (ip);
+
+-- Хиты прежней таблицы не копируются: она целиком подключается секцией stats_legacy_before_yYYYYmMM
+-- от MINVALUE до начала месяца после последнего хита. CHECK проверяется до подключения под более слабой
+-- блокировкой, и ATTACH не сканирует таблицу повторно; недостающие индексы ATTACH строит сам.
+-- Секцию удаляет StatsPartitionMaintenance, когда все её месяцы выходят за срок хранения
+DO '
+DECLARE
+    max_id BIGINT;
+    max_timestamp TIMESTAMPTZ;
+    bound TIMESTAMPTZ;
+    partition_name TEXT;
+BEGIN
+    IF to_regclass(''stats_legacy'') IS NULL THEN
+        RETURN;
+    END IF;
+    SELECT MAX(id), MAX(timestamp) INTO max_id, max_timestamp FROM stats_legacy;
+    IF max_id IS NULL THEN
+        DROP TABLE stats_legacy;
+        RETURN;
+    END IF;
+
+    -- Новые хиты продолжают нумерацию прежней таблицы
+    PERFORM setval(''stats_hit_id_seq'', max_id);
+    ALTER TABLE stats_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+    bound := (date_trunc(''month'', max_timestamp AT TIME ZONE ''UTC'') + INTERVAL ''1 month'') AT TIME ZONE ''UTC'';
+    partition_name := ''stats_legacy_before_'' || to_char(bound AT TIME ZONE ''UTC'', ''"y"YYYY"m"MM'');
+    EXECUTE format(''ALTER TABLE stats_legacy ADD CONSTRAINT stats_legacy_bound CHECK (timestamp < %L) NOT VALID'',
+                   bound);
+    ALTER TABLE stats_legacy VALIDATE CONSTRAINT stats_legacy_bound;
+    EXECUTE format(''ALTER TABLE stats_legacy RENAME TO %I'', partition_name);
+    EXECUTE format(''ALTER TABLE stats ATTACH PARTITION %I FOR VALUES FROM (MINVALUE) TO (%L)'',
+                   partition_name, bound);
+END
+';
+
+-- Предагрегированные счётчики хитов: granularity = MINUTE | HOUR | DAY, bucket_start - начало корзины в UTC
+CREATE TABLE IF NOT EXISTS stats_rollup (
+    app VARCHAR(255) NOT NULL,
+    uri VARCHAR(2048) NOT NULL,
+    granularity VARCHAR(8) NOT NULL,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (granularity, uri, bucket_start, app)
 );
+
+CREATE INDEX IF NOT EXISTS idx_stats_rollup_bucket ON stats_rollup (granularity, bucket_start);
+
+-- Отметки дозаполнения производных таблиц (name = ROLLUP | SKETCH): хиты с id <= max_hit_id записаны
+-- до их появления и добавляются один раз при старте, последующие учитываются при записи.
+-- Отметка создаётся здесь, до начала приёма хитов, и дальше не меняется
+CREATE TABLE IF NOT EXISTS stats_backfill (
+    name VARCHAR(16) PRIMARY KEY,
+    max_hit_id BIGINT NOT NULL,
+    done BOOLEAN NOT NULL
+);
+
+INSERT INTO stats_backfill (name, max_hit_id, done)
+SELECT 'ROLLUP', COALESCE(MAX(id), 0), FALSE FROM stats
+ON CONFLICT (name) DO NOTHING;
+
+INSERT INTO stats_backfill (name, max_hit_id, done)
+SELECT 'SKETCH', COALESCE(MAX(id), 0), FALSE FROM stats
+ON CONFLICT (name) DO NOTHING;
+
+-- Скетчи HyperLogLog уникальных IP в корзинах HOUR | DAY. registers - 4096 регистров по байту (плотный формат)
+-- либо тройки (номер регистра, 2 байта; значение, 1 байт) ненулевых регистров (разреженный), см. HyperLogLog
+CREATE TABLE IF NOT EXISTS stats_sketch (
+    app VARCHAR(255) NOT NULL,
+    uri VARCHAR(2048) NOT NULL,
+    granularity VARCHAR(8) NOT NULL,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    registers BYTEA NOT NULL,
+    PRIMARY KEY (granularity, uri, bucket_start, app)
+);
+
+CREATE INDEX IF NOT EXISTS idx_stats_sketch_bucket ON stats_sketch (granularity, bucket_start);
+
+-- Ненулевые регистры скетча в любом из двух форматов
+CREATE OR REPLACE FUNCTION stats_hll_registers(sketch BYTEA)
+RETURNS TABLE (idx INT, val INT) LANGUAGE sql IMMUTABLE STRICT AS '
+    SELECT i, get_byte(sketch, i)
+    FROM generate_series(0, CASE WHEN length(sketch) = 4096 THEN 4095 ELSE -1 END) AS i
+    WHERE get_byte(sketch, i) > 0
+    UNION ALL
+    SELECT get_byte(sketch, p) * 256 + get_byte(sketch, p + 1), get_byte(sketch, p + 2)
+    FROM generate_series(0, CASE WHEN length(sketch) = 4096 THEN -1 ELSE length(sketch) - 3 END, 3) AS p
+';
+
+-- Объединение скетчей (максимум по регистрам) в том же формате, что строит HyperLogLog.toBytes:
+-- разреженный, пока он короче плотного
+CREATE OR REPLACE FUNCTION stats_hll_merge(a BYTEA, b BYTEA)
+RETURNS BYTEA LANGUAGE sql IMMUTABLE STRICT AS '
+    WITH merged AS (
+        SELECT r.idx, MAX(r.val) AS val
+        FROM (SELECT * FROM stats_hll_registers(a) UNION ALL SELECT * FROM stats_hll_registers(b)) AS r
+        GROUP BY r.idx
+    )
+    SELECT CASE
+        WHEN (SELECT COUNT(*) FROM merged) * 3 < 4096 THEN
+            COALESCE((SELECT string_agg(int2send(m.idx::SMALLINT) || set_byte(decode(''00'', ''hex''), 0, m.val),
+                                        ''''::BYTEA ORDER BY m.idx)
+                      FROM merged AS m), ''''::BYTEA)
+        ELSE
+            (SELECT string_agg(set_byte(decode(''00'', ''hex''), 0, COALESCE(m.val, 0)), ''''::BYTEA ORDER BY i)
+             FROM generate_series(0, 4095) AS i LEFT JOIN merged AS m ON m.idx = i)
+    END
+';
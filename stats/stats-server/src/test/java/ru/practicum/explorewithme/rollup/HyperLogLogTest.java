@@ -0,0 +1,99 @@
+package ru.practicum.explorewithme.rollup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimate_shouldBeNearlyExact_whenFewUniqueValues() {
+        HyperLogLog sketch = sketchOf(0, 100);
+
+        // Повторы не влияют на оценку
+        IntStream.range(0, 100).forEach(i -> sketch.add(ip(i)));
+
+        // Linear counting: расхождение только из-за совпадения регистров у разных значений
+        assertThat(sketch.estimate()).isBetween(98L, 102L);
+    }
+
+    @Test
+    void estimate_shouldStayWithinThreeStandardErrors() {
+        for (int count : new int[]{1_000, 10_000, 100_000, 1_000_000}) {
+            long estimate = sketchOf(0, count).estimate();
+
+            assertThat(Math.abs(estimate - count) / (double) count)
+                    .as("count = %d, estimate = %d", count, estimate)
+                    .isLessThanOrEqualTo(3 * HyperLogLog.STANDARD_ERROR);
+        }
+    }
+
+    @Test
+    void merge_shouldEqualSketchOfUnion() {
+        HyperLogLog merged = sketchOf(0, 60_000);
+        merged.merge(sketchOf(40_000, 100_000));
+
+        assertThat(merged.toBytes()).isEqualTo(sketchOf(0, 100_000).toBytes());
+    }
+
+    @Test
+    void merge_shouldBeIdempotent() {
+        HyperLogLog sketch = sketchOf(0, 5_000);
+        byte[] before = sketch.toBytes();
+
+        sketch.merge(sketchOf(0, 5_000));
+        sketch.merge(sketchOf(1_000, 2_000));
+
+        assertThat(sketch.toBytes()).isEqualTo(before);
+    }
+
+    @Test
+    void toBytes_shouldUseSparseFormat_whenShorterThanDense() {
+        HyperLogLog sketch = sketchOf(0, 50);
+
+        byte[] bytes = sketch.toBytes();
+
+        assertThat(bytes.length).isLessThan(HyperLogLog.REGISTERS).isLessThanOrEqualTo(50 * 3);
+        assertThat(bytes.length % 3).isZero();
+        assertThat(HyperLogLog.fromBytes(bytes).estimate()).isEqualTo(sketch.estimate());
+        assertThat(HyperLogLog.fromBytes(bytes).toBytes()).isEqualTo(bytes);
+    }
+
+    @Test
+    void toBytes_shouldUseDenseFormat_whenManyRegistersAreSet() {
+        HyperLogLog sketch = sketchOf(0, 100_000);
+
+        byte[] bytes = sketch.toBytes();
+
+        assertThat(bytes).hasSize(HyperLogLog.REGISTERS);
+        assertThat(HyperLogLog.fromBytes(bytes).toBytes()).isEqualTo(bytes);
+    }
+
+    @Test
+    void fromBytes_shouldReadEmptySketch() {
+        HyperLogLog sketch = HyperLogLog.fromBytes(new HyperLogLog().toBytes());
+
+        assertThat(sketch.estimate()).isZero();
+    }
+
+    @Test
+    void fromBytes_shouldRejectInvalidLength() {
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[4]))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{(byte) 0x10, 0, 1}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static HyperLogLog sketchOf(int from, int to) {
+        HyperLogLog sketch = new HyperLogLog();
+        IntStream.range(from, to).forEach(i -> sketch.add(ip(i)));
+        return sketch;
+    }
+
+    private static String ip(int i) {
+        return "10." + (i >>> 16 & 0xff) + "." + (i >>> 8 & 0xff) + "." + (i & 0xff);
+    }
+}
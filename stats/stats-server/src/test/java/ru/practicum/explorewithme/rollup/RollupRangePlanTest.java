@@ -0,0 +1,125 @@
+package ru.practicum.explorewithme.rollup;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollupRangePlanTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 3, 10, 0, 0);
+
+    @Test
+    void of_shouldUseLargestBucketsAndRawEdges() {
+        LocalDateTime from = DAY.withHour(10).withMinute(15).withSecond(30);
+        LocalDateTime to = DAY.plusDays(2).withHour(3);
+
+        RollupRangePlan plan = RollupRangePlan.of(from, to);
+
+        assertThat(plan.raw()).containsExactly(
+                new RollupRangePlan.RawRange(from, DAY.withHour(10).withMinute(16)));
+        assertThat(plan.buckets()).containsExactlyInAnyOrder(
+                new RollupRangePlan.BucketRange(Granularity.MINUTE, DAY.withHour(10).withMinute(16), DAY.withHour(11)),
+                new RollupRangePlan.BucketRange(Granularity.HOUR, DAY.withHour(11), DAY.plusDays(1)),
+                new RollupRangePlan.BucketRange(Granularity.DAY, DAY.plusDays(1), DAY.plusDays(2)),
+                new RollupRangePlan.BucketRange(Granularity.HOUR, DAY.plusDays(2), DAY.plusDays(2).withHour(3)));
+    }
+
+    @Test
+    void of_shouldReturnSingleDayRange_whenRangeIsAlignedToDays() {
+        RollupRangePlan plan = RollupRangePlan.of(DAY, DAY.plusDays(30));
+
+        assertThat(plan.raw()).isEmpty();
+        assertThat(plan.buckets()).containsExactly(
+                new RollupRangePlan.BucketRange(Granularity.DAY, DAY, DAY.plusDays(30)));
+    }
+
+    @Test
+    void of_shouldReadOnlyRawHits_whenRangeIsShorterThanMinute() {
+        LocalDateTime from = DAY.withSecond(10);
+        LocalDateTime to = DAY.withSecond(50);
+
+        RollupRangePlan plan = RollupRangePlan.of(from, to);
+
+        assertThat(plan.buckets()).isEmpty();
+        assertThat(plan.raw()).containsExactly(new RollupRangePlan.RawRange(from, to));
+    }
+
+    @Test
+    void of_shouldReadRawHitsInsteadOfMinutes_whenFinestIsHour() {
+        LocalDateTime from = DAY.withHour(10).withMinute(15);
+        LocalDateTime to = DAY.withHour(12).withMinute(30);
+
+        RollupRangePlan plan = RollupRangePlan.of(from, to, Granularity.HOUR);
+
+        assertThat(plan.buckets()).containsExactly(
+                new RollupRangePlan.BucketRange(Granularity.HOUR, DAY.withHour(11), DAY.withHour(12)));
+        assertThat(plan.raw()).containsExactlyInAnyOrder(
+                new RollupRangePlan.RawRange(from, DAY.withHour(11)),
+                new RollupRangePlan.RawRange(DAY.withHour(12), to));
+    }
+
+    @Test
+    void of_shouldReturnEmptyPlan_whenRangeIsEmpty() {
+        RollupRangePlan plan = RollupRangePlan.of(DAY, DAY);
+
+        assertThat(plan.buckets()).isEmpty();
+        assertThat(plan.raw()).isEmpty();
+    }
+
+    @Test
+    void plus_shouldCoverBothRanges_whenFinestChangesAtCutoff() {
+        LocalDateTime from = DAY.withHour(10).withMinute(15);
+        LocalDateTime cutoff = DAY.plusDays(3);
+        LocalDateTime to = DAY.plusDays(4).withHour(5).withMinute(30);
+
+        RollupRangePlan plan = RollupRangePlan.of(from, cutoff, Granularity.DAY)
+                .plus(RollupRangePlan.of(cutoff, to, Granularity.HOUR));
+
+        assertThat(plan.buckets()).containsExactlyInAnyOrder(
+                new RollupRangePlan.BucketRange(Granularity.DAY, DAY.plusDays(1), cutoff),
+                new RollupRangePlan.BucketRange(Granularity.DAY, cutoff, DAY.plusDays(4)),
+                new RollupRangePlan.BucketRange(Granularity.HOUR, DAY.plusDays(4), DAY.plusDays(4).withHour(5)));
+        assertThat(plan.raw()).containsExactlyInAnyOrder(
+                new RollupRangePlan.RawRange(from, DAY.plusDays(1)),
+                new RollupRangePlan.RawRange(DAY.plusDays(4).withHour(5), to));
+        assertCovers(plan, from, to, Granularity.HOUR);
+    }
+
+    @Test
+    void of_shouldCoverRangeExactlyWithoutOverlaps() {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            LocalDateTime from = DAY.plusSeconds(random.nextInt(5 * 24 * 3600));
+            LocalDateTime to = from.plusSeconds(random.nextInt(40 * 24 * 3600));
+            for (Granularity finest : Granularity.values()) {
+                assertCovers(RollupRangePlan.of(from, to, finest), from, to, finest);
+            }
+        }
+    }
+
+    private static void assertCovers(RollupRangePlan plan, LocalDateTime from, LocalDateTime to, Granularity finest) {
+        List<LocalDateTime[]> ranges = new ArrayList<>();
+        for (RollupRangePlan.BucketRange bucket : plan.buckets()) {
+            assertThat(bucket.granularity().compareTo(finest)).isLessThanOrEqualTo(0);
+            assertThat(bucket.granularity().floor(bucket.from())).isEqualTo(bucket.from());
+            assertThat(bucket.granularity().floor(bucket.to())).isEqualTo(bucket.to());
+            ranges.add(new LocalDateTime[]{bucket.from(), bucket.to()});
+        }
+        plan.raw().forEach(raw -> ranges.add(new LocalDateTime[]{raw.from(), raw.to()}));
+        ranges.sort(Comparator.comparing(range -> range[0]));
+
+        LocalDateTime covered = from;
+        for (LocalDateTime[] range : ranges) {
+            assertThat(range[0]).isEqualTo(covered);
+            assertThat(range[0]).isBefore(range[1]);
+            covered = range[1];
+        }
+        assertThat(covered).isEqualTo(to);
+    }
+}